@@ -0,0 +1,94 @@
+package restaurant;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes a menu, a well stocked inventory and minimums to a new folder and points the restaurant at it, so
+ * benchmarks never touch the real data files and never run out of stock
+ */
+final class BenchmarkData {
+    static final String[] MENU = {
+            "5 | Burger | 2 x bun, 1 x patty, 1 x lettuce, 1 x tomato",
+            "4 | Salad | 2 x lettuce, 1 x tomato, 1 x cucumber",
+            "2 | Fries | 1 x potato, 1 x vegetable oil",
+            "10 | Spaghetti | 1 x tomato, 1 x noodles, 1 x ground beef",
+            "4 | Fried Chicken | 1 x chicken, 1 x bread, 1 x salt",
+            "2 | Soda | 1 x soda",
+            "20 | Steak | 1 x raw steak, 1 x steak sauce",
+            "5 | Pizza | 2 x cheese, 1 x dough, 1 x tomato",
+    };
+
+    static final String[] INGREDIENTS = {
+            "bun", "patty", "lettuce", "tomato", "cucumber", "potato", "vegetable oil", "noodles", "ground beef",
+            "chicken", "bread", "salt", "soda", "raw steak", "steak sauce", "cheese", "dough",
+    };
+
+    static final int STOCK = 1_000_000_000;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Creates the data folder and sets restaurant.data to it. Must run before any restaurant class reads its files
+     * @return the data folder
+     */
+    static Path create() throws IOException {
+        Path folder = Files.createTempDirectory("restaurant-bench");
+        System.setProperty("restaurant.data", folder.toString());
+        Files.write(folder.resolve("menu.txt"), List.of(MENU));
+        List<String> inventory = new ArrayList<>();
+        List<String> minimums = new ArrayList<>();
+        for (String ingredient : INGREDIENTS) {
+            inventory.add(ingredient + " | " + STOCK);
+            minimums.add(ingredient + " | " + 10);
+        }
+        Files.write(folder.resolve("inventory.txt"), inventory);
+        Files.write(folder.resolve("minimums.txt"), minimums);
+        return folder;
+    }
+
+    // creates a Restaurant with three servers and three cooks, named like in events.txt
+    static Restaurant restaurant() {
+        List<Server> servers = new ArrayList<>();
+        List<Cook> cooks = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            servers.add(new Server("server" + i));
+            cooks.add(new Cook("cook" + i));
+        }
+        return new Restaurant(servers, cooks);
+    }
+
+    // stops the event log lines from reaching the console, which would drown out the measurement
+    static void silence() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    /**
+     * Writes an events file where every Order goes through its whole lifecycle, five events per Order
+     * @param folder the folder to write to
+     * @param orders the number of Orders
+     * @return the events file
+     */
+    static Path events(Path folder, int orders) throws IOException {
+        List<String> lines = new ArrayList<>(orders * 5);
+        for (int order = 1; order <= orders; order++) {
+            String server = "server" + (1 + order % 3);
+            String cook = "cook" + (1 + order % 3);
+            lines.add(server + " | takeOrder |  | " + (1 + order % 20)
+                    + " ; Burger x 2 +lettuce, Fries x 1 -salt, Soda x 2");
+            lines.add(cook + " | cookConfirmOrder | " + order + " |");
+            lines.add(cook + " | cookFinishedOrder | " + order + " |");
+            lines.add(server + " | tableReceivedOrder | " + order);
+            lines.add(server + " | tableRequestedBill | " + order);
+        }
+        Path file = folder.resolve("events-" + orders + ".txt");
+        Files.write(file, lines);
+        return file;
+    }
+}
@@ -0,0 +1,47 @@
+package restaurant;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uses and receives ingredients, including writing the change to disk. With writeBehind the change is journaled,
+ * otherwise inventory.txt is rewritten every time
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InventoryBenchmark {
+    @Param({"true", "false"})
+    public boolean writeBehind;
+
+    private InventoryManager inventory;
+    private final Map<String, Integer> burger = Map.of("bun", 2, "patty", 1, "lettuce", 1, "tomato", 1);
+    private final Map<String, Integer> shipment = Map.of("bun", 2, "patty", 1, "lettuce", 1, "tomato", 1);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkData.create();
+        inventory = new InventoryManager(writeBehind);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        inventory.close();
+    }
+
+    @Benchmark
+    public void useIngredients() {
+        inventory.useIngredients(burger);
+    }
+
+    @Benchmark
+    public void receiveShipment() {
+        inventory.receiveShipment(shipment);
+    }
+}
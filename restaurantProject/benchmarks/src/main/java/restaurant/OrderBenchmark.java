@@ -0,0 +1,48 @@
+package restaurant;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds up the ingredients and price of Orders with the given number of lines, half of them with changes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderBenchmark {
+    @Param({"1", "10", "100"})
+    public int lines;
+
+    private Order order;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        IngredientIndex index = new IngredientIndex();
+        Food burger = new Food("Burger", 5, Map.of("bun", 2, "patty", 1, "lettuce", 1, "tomato", 1), index);
+        Food fries = new Food("Fries", 2, Map.of("potato", 1, "vegetable oil", 1, "salt", 1), index);
+        order = new Order(1, 1);
+        for (int i = 0; i < lines; i++) {
+            if (i % 2 == 0) {
+                order.addLine(new OrderLine(burger, 2));
+            } else {
+                order.addLine(OrderLine.withChanges(fries, 3, List.of("ketchup"), List.of("salt")));
+            }
+        }
+    }
+
+    @Benchmark
+    public Map<String, Integer> getAllIngredients() {
+        return order.getAllIngredients();
+    }
+
+    @Benchmark
+    public float getPrice() {
+        return order.getPrice();
+    }
+}
@@ -0,0 +1,57 @@
+package restaurant;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves one Order through every stage of OrderManager, and looks Orders up by number, while the given number of
+ * other Orders wait in each stage
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderManagerBenchmark {
+    @Param({"10", "1000", "100000"})
+    public int depth;
+
+    private OrderManager manager;
+    private int nextNumber;
+    private int lookup;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = new OrderManager();
+        nextNumber = 1;
+        for (int i = 0; i < depth; i++) {
+            Order cooked = new Order(1, nextNumber++);
+            manager.placeOrder(cooked);
+            manager.acceptOrder(cooked);
+            manager.orderIsCooked(cooked);
+            Order inProgress = new Order(1, nextNumber++);
+            manager.placeOrder(inProgress);
+            manager.acceptOrder(inProgress);
+            manager.placeOrder(new Order(1, nextNumber++));
+        }
+    }
+
+    @Benchmark
+    public Order stageTransitions() {
+        Order order = new Order(1, nextNumber++);
+        manager.placeOrder(order);
+        manager.acceptOrder(order);
+        manager.orderIsCooked(order);
+        manager.retrieveOrder(order);
+        return order;
+    }
+
+    @Benchmark
+    public Order lookupPending() {
+        // every third Order from setUp is pending
+        lookup = (lookup + 3) % (depth * 3);
+        return manager.getOrder(lookup + 3, "pending");
+    }
+}
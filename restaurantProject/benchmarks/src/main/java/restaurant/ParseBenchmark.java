@@ -0,0 +1,39 @@
+package restaurant;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a takeOrder event line and builds its Order
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+    private static final String EVENT = "server1 | takeOrder |  | 4 ; Burger x 2 +lettuce, Fries x 1 -salt, Fries x 1";
+
+    private Restaurant restaurant;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkData.create();
+        restaurant = BenchmarkData.restaurant();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        restaurant.close();
+    }
+
+    @Benchmark
+    public Order parseOrder() throws IOException {
+        TextScanner scanner = new TextScanner("event", EVENT, restaurant.getNames());
+        scanner.nextLine();
+        return restaurant.buildOrder(EventRecord.parse(scanner), 1);
+    }
+}
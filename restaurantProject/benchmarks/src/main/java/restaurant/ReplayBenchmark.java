@@ -0,0 +1,55 @@
+package restaurant;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a whole events file, five events per Order, into a new Restaurant. The event log lines are built as usual
+ * but not written to the console
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ReplayBenchmark {
+    @Param({"1000", "20000"})
+    public int orders;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private Path events;
+    private Restaurant restaurant;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path folder = BenchmarkData.create();
+        events = BenchmarkData.events(folder, orders);
+        BenchmarkData.silence();
+    }
+
+    // every Restaurant numbers its own Orders from 1, so each iteration replays the file from a fresh one
+    @Setup(Level.Iteration)
+    public void newRestaurant() {
+        restaurant = BenchmarkData.restaurant();
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeRestaurant() {
+        restaurant.close();
+    }
+
+    @Benchmark
+    public void processEvents() {
+        if (threads == 1) {
+            restaurant.processEvents(events.toString());
+        } else {
+            restaurant.processEventsInParallel(events.toString(), threads);
+        }
+    }
+}
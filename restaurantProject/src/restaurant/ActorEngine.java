@@ -0,0 +1,244 @@
+package restaurant;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The ActorEngine class. Replays an events file with every Server and Cook working as an actor with its own mailbox.
+ *
+ * The calling thread reads the file and puts each event in the mailbox of the worker named in it. An actor only runs
+ * while it has mail, and then takes its events one at a time, so many workers share a small pool of threads and a
+ * worker with nothing to do costs no thread at all. Different workers handle their own events at the same time.
+ *
+ * The events of one Order still happen in the order of the file, even though they go to different workers: an event
+ * waits for the previous event of its Order. An actor whose next event is waiting steps off its thread and is run
+ * again once that event is done, so no thread is ever blocked waiting for another worker. The earliest event not
+ * done yet can always go ahead, so the actors never wait on each other forever. Inventory changes are journaled and
+ * written by the inventory's own background thread, so actors don't wait for the disk either.
+ *
+ * Events without an order number, such as receiveShipment, change state shared by every Order and are handled as by
+ * EventEngine: the reader waits for every actor to finish what it has been given and processes the event itself. The
+ * remake placed by a tableRejectedOrder keeps the number of the rejected Order, so its events wait for the rejection
+ */
+class ActorEngine {
+    private static final int THROUGHPUT = 64; // events an actor handles before letting another actor have its thread
+
+    private final Restaurant restaurant;
+    private final ForkJoinPool pool;
+    private final Map<String, Actor> actors = new ConcurrentHashMap<>(); // by worker name
+    private final Map<Integer, Message> lastOfOrder = new ConcurrentHashMap<>(); // the newest event of each Order
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+    private int outstanding; // events handed to actors and not yet processed, guarded by this
+
+    /**
+     * Creates an engine that processes events for the given Restaurant
+     * @param restaurant the Restaurant the events happen in
+     * @param threads the number of threads the actors share
+     */
+    ActorEngine(Restaurant restaurant, int threads){
+        if (threads < 1){
+            throw new IllegalArgumentException("An actor engine needs at least one thread!");
+        }
+        this.restaurant = restaurant;
+        this.pool = new ForkJoinPool(threads, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+    }
+
+    /**
+     * Processes every line of the given events file and returns once they are all done. If an event fails, no further
+     * events are handed out and the exception is thrown once the actors have stopped
+     * @param file the events file
+     */
+    void run(String file) throws IOException{
+        try (TextScanner scanner = new TextScanner(file, restaurant.getNames())) {
+            while (failure.get() == null && scanner.nextLine()){
+                EventRecord event;
+                try {
+                    event = EventRecord.parse(scanner);
+                } catch (IllegalArgumentException e) {
+                    // a badly formed event is skipped
+                    System.out.println(e.getMessage());
+                    continue;
+                }
+                dispatch(event);
+            }
+        } finally {
+            awaitIdle();
+            pool.shutdown();
+            try {
+                pool.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (failure.get() != null){
+            throw failure.get();
+        }
+    }
+
+    // returns the number of actors, one for every worker named in the events so far
+    int countActors(){
+        return actors.size();
+    }
+
+    // Puts a single event in its worker's mailbox, or processes it here once every actor is idle
+    private void dispatch(EventRecord event){
+        boolean takeOrder = event.eventType.equals("takeOrder");
+
+        int orderNumber;
+        if (takeOrder){
+            orderNumber = restaurant.reserveOrderNumber();
+        } else if (event.orderId != -1){
+            orderNumber = event.orderId;
+        } else {
+            awaitIdle();
+            try {
+                restaurant.processEvent(event, -1);
+            } catch (RuntimeException e){
+                failure.compareAndSet(null, e);
+            }
+            return;
+        }
+
+        synchronized (this){
+            outstanding++;
+        }
+        Message message = new Message(event, takeOrder ? orderNumber : -1, orderNumber);
+        Message previous = lastOfOrder.put(orderNumber, message);
+        message.previous = previous == null || previous.isDone() ? null : previous;
+        actors.computeIfAbsent(event.workerName, Actor::new).tell(message);
+    }
+
+    // Waits until every event handed to the actors has been processed
+    private synchronized void awaitIdle(){
+        while (outstanding > 0){
+            try {
+                wait();
+            } catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private synchronized void finished(){
+        outstanding--;
+        if (outstanding == 0){
+            notifyAll();
+        }
+    }
+
+    // An event, the number reserved for its Order if it is a takeOrder event, and the event of the same Order before it
+    private static class Message {
+        final EventRecord event;
+        final int newOrderNumber;
+        final int orderNumber;
+        Message previous; // null if there is nothing to wait for
+        private boolean done; // guarded by this
+        private Actor waiter; // the actor whose next event this is, if it is waiting, guarded by this
+
+        Message(EventRecord event, int newOrderNumber, int orderNumber){
+            this.event = event;
+            this.newOrderNumber = newOrderNumber;
+            this.orderNumber = orderNumber;
+        }
+
+        synchronized boolean isDone(){
+            return done;
+        }
+
+        // returns true if this event is done, otherwise remembers the actor to run again once it is
+        synchronized boolean doneOrWake(Actor actor){
+            if (!done){
+                waiter = actor;
+            }
+            return done;
+        }
+
+        // marks this event as done and runs the actor waiting for it, if any
+        void finish(){
+            Actor wake;
+            synchronized (this){
+                done = true;
+                wake = waiter;
+                waiter = null;
+            }
+            if (wake != null){
+                wake.schedule();
+            }
+        }
+    }
+
+    // A Server or Cook, handling the events in their mailbox one at a time
+    private class Actor implements Runnable {
+        private final String name;
+        private final Queue<Message> mailbox = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(); // true while the actor is queued or running
+
+        Actor(String name){
+            this.name = name;
+        }
+
+        void tell(Message message){
+            mailbox.add(message);
+            schedule();
+        }
+
+        // gives the actor a thread from the pool, unless it already has one or is about to
+        void schedule(){
+            if (scheduled.compareAndSet(false, true)){
+                pool.execute(this);
+            }
+        }
+
+        @Override
+        public void run(){
+            for (int i = 0; i < THROUGHPUT; i++){
+                Message message = mailbox.peek();
+                if (message == null){
+                    break;
+                }
+                Message previous = message.previous;
+                if (previous != null && !previous.doneOrWake(this)){
+                    // step off the thread until the previous event of the Order is done
+                    scheduled.set(false);
+                    if (previous.isDone()){
+                        // it finished before the thread was given up, so the wake up may have been missed
+                        schedule();
+                    }
+                    return;
+                }
+                mailbox.poll();
+                // once an event has failed, the rest are only drained so the reader is never blocked
+                if (failure.get() == null){
+                    try {
+                        restaurant.processEvent(message.event, message.newOrderNumber);
+                    } catch (RuntimeException e){
+                        failure.compareAndSet(null, e);
+                    }
+                }
+                message.previous = null;
+                message.finish();
+                lastOfOrder.remove(message.orderNumber, message);
+                finished();
+            }
+            scheduled.set(false);
+            if (!mailbox.isEmpty()){
+                schedule();
+            }
+        }
+
+        @Override
+        public String toString(){
+            return name;
+        }
+    }
+}
@@ -1,4 +1,5 @@
-import java.util.LinkedList;
+package restaurant;
+
 /**
  * The Cook class takes an Order from OrderManager to prepare and pass it on
  */
@@ -23,9 +24,9 @@ public class Cook {
         manager.orderIsCooked(currentOrder);
     }
 
-    public void chooseOrder(OrderManager manager){
-        LinkedList<Order> pendingOrders = manager.getPendingOrders();
-        currentOrder = pendingOrders.getFirst();
+    // takes the next Order from this Cook's queue in the Kitchen, or from a busier Cook's queue if it is empty
+    public void chooseOrder(Kitchen kitchen){
+        currentOrder = kitchen.nextOrder(this);
     }
 
     public String getID() {
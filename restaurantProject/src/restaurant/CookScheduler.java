@@ -0,0 +1,288 @@
+package restaurant;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * The CookScheduler class. Decides which pending Order each Cook of a Kitchen makes next.
+ *
+ * Every Cook has their own queue of tickets. A new Order goes to the Cook with the least estimated work queued, and
+ * a Cook picks from the oldest few tickets in their own queue the one that has waited longest for its size and
+ * priority. A Cook whose queue is empty takes the newest ticket of the Cook with the most work queued, so no Cook is
+ * idle while another has a backlog.
+ *
+ * A ticket's score grows by one for every nanosecond it waits, while its size and priority only move it by a fixed
+ * amount, so a ticket is never passed over for longer than MAX_PREP_NANOS plus MAX_PRIORITY * PRIORITY_NANOS
+ *
+ * Remakes of rejected Orders skip the Cooks' queues. They wait in one remake lane shared by every Cook, and a free
+ * Cook always takes the oldest remake before anything in their own queue, so a table that sent its food back waits
+ * at most for the first Cook to finish
+ * */
+class CookScheduler {
+    // how long a dish is expected to take: a fixed part plus a part for every ingredient in it
+    static final long DISH_NANOS = 60_000_000_000L;
+    static final long INGREDIENT_NANOS = 30_000_000_000L;
+    static final long MAX_PREP_NANOS = 30 * 60_000_000_000L; // longer estimates are treated as this long
+
+    static final long PRIORITY_NANOS = 5 * 60_000_000_000L; // how much sooner each level of priority is made
+    static final int MAX_PRIORITY = 3;
+
+    private static final int WINDOW = 8; // how many of their oldest tickets a Cook chooses between
+    private static final int REMAKE_LANE = -1; // the home of a ticket in the remake lane
+
+    private final List<Cook> cooks;
+    private final ConcurrentLinkedDeque<Ticket>[] queues;
+    // the remake lane, oldest first
+    private final ConcurrentLinkedDeque<Ticket> remakes = new ConcurrentLinkedDeque<>();
+    private final AtomicLong[] queuedNanos; // estimated work in each Cook's queue
+    private final Map<Integer, Ticket> tickets = new ConcurrentHashMap<>(); // tickets not taken yet, by order number
+    private final Map<String, Integer> priorities = new ConcurrentHashMap<>(); // dish priorities, 0 if not listed
+    private volatile LongSupplier clock = System::nanoTime; // how long tickets have waited is measured with this
+
+    /**
+     * Creates a scheduler for the given Cooks
+     * @param cooks the Cooks of the Kitchen. Cooks added to the list later are not given tickets
+     * */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    CookScheduler(List<Cook> cooks){
+        this.cooks = cooks;
+        this.queues = new ConcurrentLinkedDeque[cooks.size()];
+        this.queuedNanos = new AtomicLong[cooks.size()];
+        for (int i = 0; i < queues.length; i++){
+            queues[i] = new ConcurrentLinkedDeque<>();
+            queuedNanos[i] = new AtomicLong();
+        }
+    }
+
+    /**
+     * Sets how urgent a dish is. An Order is as urgent as its most urgent dish
+     * @param dish the name of the food on the menu
+     * @param priority from 0, the default, to MAX_PRIORITY
+     * */
+    void setPriority(String dish, int priority){
+        if (priority < 0 || priority > MAX_PRIORITY){
+            throw new IllegalArgumentException("A priority must be between 0 and " + MAX_PRIORITY + "!");
+        }
+        priorities.put(dish, priority);
+    }
+
+    /**
+     * Measures how long tickets wait with the given clock instead of System.nanoTime, for when the Kitchen runs on
+     * simulated time
+     * @param clock returns the current time in nanoseconds
+     * */
+    void setClock(LongSupplier clock){
+        this.clock = clock;
+    }
+
+    /**
+     * Gives a pending Order to the Cook with the least estimated work queued
+     * @param order the Order that was just placed
+     * */
+    void schedule(Order order){
+        if (queues.length == 0){
+            return;
+        }
+        Ticket ticket = new Ticket(order, estimate(order), priorityOf(order), leastLoaded(), clock.getAsLong());
+        if (tickets.putIfAbsent(order.orderNumber, ticket) != null){
+            throw new IllegalArgumentException("This order has already been scheduled!");
+        }
+        queuedNanos[ticket.home].addAndGet(ticket.prepNanos);
+        queues[ticket.home].addLast(ticket);
+    }
+
+    /**
+     * Puts the remake of a rejected Order in the remake lane, ahead of every Cook's queue
+     * @param order the remake, just placed
+     * */
+    void scheduleRemake(Order order){
+        if (queues.length == 0){
+            return;
+        }
+        Ticket ticket = new Ticket(order, estimate(order), MAX_PRIORITY, REMAKE_LANE, clock.getAsLong());
+        if (tickets.putIfAbsent(order.orderNumber, ticket) != null){
+            throw new IllegalArgumentException("This order has already been scheduled!");
+        }
+        remakes.addLast(ticket);
+    }
+
+    /**
+     * Takes the next Order for the given Cook: the oldest remake if there is one, otherwise from their own queue or,
+     * if it is empty, from the busiest Cook
+     * @param cook the Cook that is free
+     * @return the Order the Cook should make next, or null if there are no tickets left
+     * */
+    Order next(Cook cook){
+        Ticket remake = stealFrom(remakes, false);
+        if (remake != null){
+            return remake.order;
+        }
+        int own = indexOf(cook);
+        Ticket ticket = chooseFrom(own);
+        while (ticket == null){
+            int victim = mostLoaded(own);
+            if (victim == -1){
+                return null;
+            }
+            ticket = stealFrom(queues[victim], true);
+        }
+        return ticket.order;
+    }
+
+    /**
+     * Takes the ticket of an Order that a Cook started without asking the scheduler, such as from a cookConfirmOrder
+     * event, so no other Cook is given it
+     * @param order the Order being cooked
+     * */
+    void taken(Order order){
+        Ticket ticket = tickets.get(order.orderNumber);
+        if (ticket != null && ticket.order == order && claim(ticket)){
+            (ticket.home == REMAKE_LANE ? remakes : queues[ticket.home]).removeFirstOccurrence(ticket);
+        }
+    }
+
+    // returns the estimated work queued for the given Cook
+    long getQueuedNanos(Cook cook){
+        return queuedNanos[indexOf(cook)].get();
+    }
+
+    // picks the ticket with the best score among the oldest few in the given queue, or null if it is empty
+    private Ticket chooseFrom(int own){
+        if (own == -1){
+            return null;
+        }
+        while (true){
+            long now = clock.getAsLong();
+            Ticket best = null;
+            long bestScore = Long.MIN_VALUE;
+            int seen = 0;
+            Iterator<Ticket> it = queues[own].iterator();
+            while (it.hasNext() && seen < WINDOW){
+                Ticket ticket = it.next();
+                if (ticket.taken.get()){
+                    // taken by a stealing Cook or an event, not removed yet
+                    queues[own].removeFirstOccurrence(ticket);
+                    continue;
+                }
+                seen++;
+                long score = ticket.score(now);
+                if (score > bestScore){
+                    best = ticket;
+                    bestScore = score;
+                }
+            }
+            if (best == null){
+                return null;
+            }
+            if (claim(best)){
+                queues[own].removeFirstOccurrence(best);
+                return best;
+            }
+            // another Cook stole it in the meantime, choose again
+        }
+    }
+
+    // takes the newest, or oldest, ticket that is still free from the given queue, or null if there are none
+    private Ticket stealFrom(ConcurrentLinkedDeque<Ticket> queue, boolean newest){
+        Ticket ticket = newest ? queue.pollLast() : queue.pollFirst();
+        while (ticket != null && !claim(ticket)){
+            ticket = newest ? queue.pollLast() : queue.pollFirst();
+        }
+        return ticket;
+    }
+
+    // marks a ticket as taken. Only one Cook can take a ticket, the others get false
+    private boolean claim(Ticket ticket){
+        if (!ticket.taken.compareAndSet(false, true)){
+            return false;
+        }
+        tickets.remove(ticket.order.orderNumber, ticket);
+        if (ticket.home != REMAKE_LANE){
+            queuedNanos[ticket.home].addAndGet(-ticket.prepNanos);
+        }
+        return true;
+    }
+
+    private int leastLoaded(){
+        int best = 0;
+        for (int i = 1; i < queuedNanos.length; i++){
+            if (queuedNanos[i].get() < queuedNanos[best].get()){
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    // returns the Cook, other than the given one, with the most estimated work queued, or -1 if every queue is empty
+    private int mostLoaded(int except){
+        int best = -1;
+        long most = 0;
+        for (int i = 0; i < queuedNanos.length; i++){
+            long queued = queuedNanos[i].get();
+            if (i != except && queued > most && !queues[i].isEmpty()){
+                best = i;
+                most = queued;
+            }
+        }
+        return best;
+    }
+
+    private int indexOf(Cook cook){
+        for (int i = 0; i < queues.length; i++){
+            if (cooks.get(i) == cook){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // estimates how long an Order takes to make from the number of dishes and ingredients in it
+    static long estimate(Order order){
+        long nanos = 0;
+        for (OrderLine line : order.getLines()){
+            int units = 0;
+            for (int amount : line.getFood().getAmounts()){
+                units += amount;
+            }
+            nanos += line.getQuantity() * (DISH_NANOS + units * INGREDIENT_NANOS);
+        }
+        return Math.min(nanos, MAX_PREP_NANOS);
+    }
+
+    private int priorityOf(Order order){
+        int priority = 0;
+        for (OrderLine line : order.getLines()){
+            priority = Math.max(priority, priorities.getOrDefault(line.getFood().toString(), 0));
+        }
+        return priority;
+    }
+
+    // a pending Order waiting in a Cook's queue
+    private static class Ticket {
+        final Order order;
+        final long prepNanos;
+        final int priority;
+        final int home; // the Cook whose queue the ticket was put in, or REMAKE_LANE
+        final long queuedAt;
+        final AtomicBoolean taken = new AtomicBoolean();
+
+        Ticket(Order order, long prepNanos, int priority, int home, long queuedAt){
+            this.order = order;
+            this.prepNanos = prepNanos;
+            this.priority = priority;
+            this.home = home;
+            this.queuedAt = queuedAt;
+        }
+
+        // higher is sooner: the time waited, plus a bonus for priority, minus the time the Order takes to make
+        long score(long now){
+            return (now - queuedAt) + priority * PRIORITY_NANOS - prepNanos;
+        }
+    }
+}
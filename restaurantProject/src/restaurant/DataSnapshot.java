@@ -0,0 +1,287 @@
+package restaurant;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32C;
+
+/**
+ * The DataSnapshot class. The menu, inventory and minimums of a data folder. The menu and minimums are kept as they
+ * were last read from menu.txt and minimums.txt in a binary file called snapshot.bin, so they can be loaded without
+ * parsing.
+ *
+ * The snapshot remembers the size and checksum of each text file it was built from. When it is opened and a text file
+ * no longer matches, or the snapshot is missing, unreadable or of another version, the text files are parsed as
+ * usual and the snapshot is written again. The inventory is not part of snapshot.bin: inventory.txt is rewritten
+ * every time the inventory journal is compacted, so it is always read from the text file, and the journal is replayed
+ * on top of it as before.
+ *
+ * snapshot.bin is in the format, all numbers big-endian:
+ * magic "RSNP", version, then for each text file its size (-1 if missing) and checksum,
+ * the number of names and each name as a length and UTF-8 bytes,
+ * the number of foods and each food as name, price, number of ingredients, and each ingredient as name and amount,
+ * the number of minimums and each one as name and amount. Names are written as their position in the list of names
+ * */
+class DataSnapshot {
+    static final String SNAPSHOT = "snapshot.bin";
+    private static final int MAGIC = 0x52534e50; // RSNP
+    private static final int VERSION = 2;
+    private static final String[] SOURCES = {"menu.txt", "minimums.txt"};
+    private static final String INVENTORY = "inventory.txt";
+
+    private final Map<String, Recipe> menu; // the foods on the menu, in the order of menu.txt
+    private final Map<String, Integer> inventory;
+    private final Map<String, Integer> minimums;
+    private final long journalSequence; // the last journal entry contained in inventory.txt
+
+    private DataSnapshot(Map<String, Recipe> menu, Map<String, Integer> inventory, Map<String, Integer> minimums,
+                         long journalSequence){
+        this.menu = menu;
+        this.inventory = inventory;
+        this.minimums = minimums;
+        this.journalSequence = journalSequence;
+    }
+
+    /**
+     * Loads the snapshot of the given data folder, rebuilding it from the text files if they have changed since it
+     * was written, and reads the inventory from inventory.txt
+     * @param folder the data folder
+     * @param names the table names read from the text files are looked up in
+     * */
+    static DataSnapshot load(String folder, TextScanner.NameTable names) throws IOException{
+        Path file = Paths.get(folder, SNAPSHOT);
+        long[] stamps = stamp(folder);
+        Map<String, Integer> inventory = new LinkedHashMap<>();
+        long sequence = 0;
+        if (Files.exists(Paths.get(folder, INVENTORY))){
+            sequence = InventoryManager.readQuantities(folder + "/" + INVENTORY, names, inventory);
+        }
+        if (Files.exists(file)){
+            try {
+                DataSnapshot snapshot = read(file, stamps, inventory, sequence);
+                if (snapshot != null){
+                    return snapshot;
+                }
+            } catch (IOException | RuntimeException e){
+                // a damaged snapshot is rebuilt like a stale one
+            }
+        }
+        DataSnapshot snapshot = parse(folder, names, inventory, sequence);
+        snapshot.write(file, stamps);
+        return snapshot;
+    }
+
+    // returns the foods on the menu, made with the given index
+    Map<String, Food> getMenu(IngredientIndex index){
+        Map<String, Food> foods = new LinkedHashMap<>(menu.size() * 2);
+        Map<String, Integer> ids = new HashMap<>();
+        for (Map.Entry<String, Recipe> entry : menu.entrySet()){
+            Recipe recipe = entry.getValue();
+            int[] ingredientIds = new int[recipe.ingredients.length];
+            for (int i = 0; i < ingredientIds.length; i++){
+                // each name is only looked up in the index once
+                ingredientIds[i] = ids.computeIfAbsent(recipe.ingredients[i], index::idOf);
+            }
+            foods.put(entry.getKey(), new Food(entry.getKey(), recipe.price, ingredientIds, recipe.amounts.clone(),
+                    index));
+        }
+        return foods;
+    }
+
+    Map<String, Integer> getInventory(){
+        return inventory;
+    }
+
+    Map<String, Integer> getMinimums(){
+        return minimums;
+    }
+
+    long getJournalSequence(){
+        return journalSequence;
+    }
+
+    // reads the menu and minimums the slow way, with the inventory that was already read
+    private static DataSnapshot parse(String folder, TextScanner.NameTable names, Map<String, Integer> inventory,
+                                      long sequence) throws IOException{
+        Map<String, Recipe> menu = new LinkedHashMap<>();
+        String menuFile = folder + "/" + SOURCES[0];
+        if (new File(menuFile).exists()){
+            for (Food food : Restaurant.readMenu(menuFile, names, new IngredientIndex()).values()){
+                menu.put(food.toString(), new Recipe(food.getPrice(), food.getIngredients()));
+            }
+        }
+        Map<String, Integer> minimums = new LinkedHashMap<>();
+        InventoryManager.readQuantities(folder + "/" + SOURCES[1], names, minimums);
+        return new DataSnapshot(menu, inventory, minimums, sequence);
+    }
+
+    // returns the size and checksum of each text file, or -1 and 0 for a file that doesn't exist
+    private static long[] stamp(String folder) throws IOException{
+        long[] stamps = new long[SOURCES.length * 2];
+        for (int i = 0; i < SOURCES.length; i++){
+            Path source = Paths.get(folder, SOURCES[i]);
+            if (!Files.exists(source)){
+                stamps[2 * i] = -1;
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)){
+                CRC32C checksum = new CRC32C();
+                long size = channel.size();
+                for (long position = 0; position < size; position += Integer.MAX_VALUE){
+                    checksum.update(channel.map(FileChannel.MapMode.READ_ONLY, position,
+                            Math.min(Integer.MAX_VALUE, size - position)));
+                }
+                stamps[2 * i] = size;
+                stamps[2 * i + 1] = checksum.getValue();
+            }
+        }
+        return stamps;
+    }
+
+    // maps the snapshot and reads it, or returns null if it is of another version or the text files have changed
+    private static DataSnapshot read(Path file, long[] stamps, Map<String, Integer> inventory, long sequence)
+            throws IOException{
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION){
+            return null;
+        }
+        for (long stamp : stamps){
+            if (buffer.getLong() != stamp){
+                return null;
+            }
+        }
+
+        String[] names = new String[buffer.getInt()];
+        byte[] bytes = new byte[64];
+        for (int i = 0; i < names.length; i++){
+            int length = buffer.getInt();
+            if (length > bytes.length){
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            buffer.get(bytes, 0, length);
+            names[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+
+        int foods = buffer.getInt();
+        Map<String, Recipe> menu = new LinkedHashMap<>(foods * 2);
+        for (int i = 0; i < foods; i++){
+            String name = names[buffer.getInt()];
+            float price = buffer.getFloat();
+            String[] ingredients = new String[buffer.getInt()];
+            int[] amounts = new int[ingredients.length];
+            for (int j = 0; j < ingredients.length; j++){
+                ingredients[j] = names[buffer.getInt()];
+                amounts[j] = buffer.getInt();
+            }
+            menu.put(name, new Recipe(price, ingredients, amounts));
+        }
+        Map<String, Integer> minimums = readQuantities(buffer, names);
+        return new DataSnapshot(menu, inventory, minimums, sequence);
+    }
+
+    private static Map<String, Integer> readQuantities(ByteBuffer buffer, String[] names){
+        int count = buffer.getInt();
+        Map<String, Integer> quantities = new LinkedHashMap<>(count * 2);
+        for (int i = 0; i < count; i++){
+            quantities.put(names[buffer.getInt()], buffer.getInt());
+        }
+        return quantities;
+    }
+
+    // writes the snapshot to a temporary file and moves it into place, so a reader never sees half of it
+    private void write(Path file, long[] stamps){
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        for (Map.Entry<String, Recipe> entry : menu.entrySet()){
+            idOf(entry.getKey(), ids, names);
+            for (String ingredient : entry.getValue().ingredients){
+                idOf(ingredient, ids, names);
+            }
+        }
+        for (String ingredient : minimums.keySet()){
+            idOf(ingredient, ids, names);
+        }
+
+        Path temp = Paths.get(file + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp),
+                1 << 16))){
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (long stamp : stamps){
+                out.writeLong(stamp);
+            }
+            out.writeInt(names.size());
+            for (String name : names){
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.writeInt(menu.size());
+            for (Map.Entry<String, Recipe> entry : menu.entrySet()){
+                out.writeInt(ids.get(entry.getKey()));
+                Recipe recipe = entry.getValue();
+                out.writeFloat(recipe.price);
+                out.writeInt(recipe.ingredients.length);
+                for (int i = 0; i < recipe.ingredients.length; i++){
+                    out.writeInt(ids.get(recipe.ingredients[i]));
+                    out.writeInt(recipe.amounts[i]);
+                }
+            }
+            writeQuantities(out, minimums, ids);
+        } catch (IOException e){
+            e.printStackTrace();
+            return;
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e){
+            e.printStackTrace();
+        }
+    }
+
+    private static void writeQuantities(DataOutputStream out, Map<String, Integer> quantities,
+                                        Map<String, Integer> ids) throws IOException{
+        out.writeInt(quantities.size());
+        for (Map.Entry<String, Integer> entry : quantities.entrySet()){
+            out.writeInt(ids.get(entry.getKey()));
+            out.writeInt(entry.getValue());
+        }
+    }
+
+    private static void idOf(String name, Map<String, Integer> ids, List<String> names){
+        if (!ids.containsKey(name)){
+            ids.put(name, names.size());
+            names.add(name);
+        }
+    }
+
+    // the price and ingredients of a food on the menu
+    private static class Recipe {
+        final float price;
+        final String[] ingredients;
+        final int[] amounts;
+
+        Recipe(float price, String[] ingredients, int[] amounts){
+            this.price = price;
+            this.ingredients = ingredients;
+            this.amounts = amounts;
+        }
+
+        Recipe(float price, Map<String, Integer> ingredients){
+            this(price, new String[ingredients.size()], new int[ingredients.size()]);
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : ingredients.entrySet()){
+                this.ingredients[i] = entry.getKey();
+                this.amounts[i] = entry.getValue();
+                i++;
+            }
+        }
+    }
+}
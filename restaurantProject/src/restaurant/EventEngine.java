@@ -0,0 +1,193 @@
+package restaurant;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The EventEngine class. Replays an events file on several threads at once.
+ *
+ * The calling thread reads and parses the file and hands each event to a worker thread chosen by the event's order
+ * number, so all events for one Order are processed by the same worker in the order they appear in the file. A
+ * takeOrder event has no order number yet, so the reader reserves the number its Order will get before handing it
+ * out.
+ *
+ * Events without an order number, such as receiveShipment, change state shared by every Order. The reader waits for
+ * the workers to finish everything before such an event, processes it itself, and only then hands out later events.
+ * The remake placed by a tableRejectedOrder keeps the number of the rejected Order, so its events go to the same
+ * worker. Stock used between two shipments is taken one Order at a time by InventoryManager, so the final inventory
+ * is the same as for a one-thread replay whenever there is enough stock for every Order
+ */
+class EventEngine {
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final Task END = new Task(null, -1);
+
+    private final Restaurant restaurant;
+    private final int threads;
+    private final List<BlockingQueue<Task>> queues;
+    private final AtomicReference<RuntimeException> failure;
+
+    private int outstanding; // events handed to workers and not yet processed, guarded by this
+
+    /**
+     * Creates an engine that processes events for the given Restaurant
+     * @param restaurant the Restaurant the events happen in
+     * @param threads the number of worker threads
+     */
+    EventEngine(Restaurant restaurant, int threads){
+        if (threads < 1){
+            throw new IllegalArgumentException("An event engine needs at least one thread!");
+        }
+        this.restaurant = restaurant;
+        this.threads = threads;
+        this.queues = new ArrayList<>();
+        this.failure = new AtomicReference<>();
+        for (int i = 0; i < threads; i++){
+            queues.add(new ArrayBlockingQueue<>(QUEUE_CAPACITY));
+        }
+    }
+
+    /**
+     * Processes every line of the given events file and returns once they are all done. If an event fails, no further
+     * events are handed out and the exception is thrown once the workers have stopped
+     * @param file the events file
+     */
+    void run(String file) throws IOException{
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++){
+            Thread worker = new Thread(new Worker(queues.get(i)), "event-worker-" + (i + 1));
+            worker.start();
+            workers.add(worker);
+        }
+
+        try (TextScanner scanner = new TextScanner(file, restaurant.getNames())) {
+            while (failure.get() == null && scanner.nextLine()){
+                EventRecord event;
+                try {
+                    event = EventRecord.parse(scanner);
+                } catch (IllegalArgumentException e) {
+                    // a badly formed event is skipped
+                    System.out.println(e.getMessage());
+                    continue;
+                }
+                dispatch(event);
+            }
+        } finally {
+            for (BlockingQueue<Task> queue : queues){
+                put(queue, END);
+            }
+            for (Thread worker : workers){
+                try {
+                    worker.join();
+                } catch (InterruptedException e){
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        if (failure.get() != null){
+            throw failure.get();
+        }
+    }
+
+    // Hands a single event to the worker for its Order, or processes it here once the workers are idle
+    private void dispatch(EventRecord event){
+        boolean takeOrder = event.eventType.equals("takeOrder");
+
+        int orderNumber;
+        if (takeOrder){
+            orderNumber = restaurant.reserveOrderNumber();
+        } else if (event.orderId != -1){
+            orderNumber = event.orderId;
+        } else {
+            awaitIdle();
+            try {
+                restaurant.processEvent(event, -1);
+            } catch (RuntimeException e){
+                failure.compareAndSet(null, e);
+            }
+            return;
+        }
+
+        synchronized (this){
+            outstanding++;
+        }
+        int newOrderNumber = takeOrder ? orderNumber : -1;
+        put(queues.get(Math.floorMod(orderNumber, threads)), new Task(event, newOrderNumber));
+    }
+
+    // Waits until every event handed to the workers has been processed
+    private synchronized void awaitIdle(){
+        while (outstanding > 0){
+            try {
+                wait();
+            } catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private synchronized void finished(){
+        outstanding--;
+        if (outstanding == 0){
+            notifyAll();
+        }
+    }
+
+    private static void put(BlockingQueue<Task> queue, Task task){
+        try {
+            queue.put(task);
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while handing out events", e);
+        }
+    }
+
+    // An event and, for takeOrder events, the number reserved for its Order
+    private static class Task {
+        final EventRecord event;
+        final int newOrderNumber;
+
+        Task(EventRecord event, int newOrderNumber){
+            this.event = event;
+            this.newOrderNumber = newOrderNumber;
+        }
+    }
+
+    // Processes the events in one queue until it reaches END
+    private class Worker implements Runnable {
+        private final BlockingQueue<Task> queue;
+
+        Worker(BlockingQueue<Task> queue){
+            this.queue = queue;
+        }
+
+        @Override
+        public void run(){
+            while (true){
+                Task task;
+                try {
+                    task = queue.take();
+                } catch (InterruptedException e){
+                    return;
+                }
+                if (task == END){
+                    return;
+                }
+                // once an event has failed, the rest are only drained so the reader is never blocked
+                if (failure.get() == null){
+                    try {
+                        restaurant.processEvent(task.event, task.newOrderNumber);
+                    } catch (RuntimeException e){
+                        failure.compareAndSet(null, e);
+                    }
+                }
+                finished();
+            }
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package restaurant;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The EventLoadClient class. Plays many point-of-sale terminals at once against an EventServer and reports how many
+ * events per second were answered and how long the answers took.
+ *
+ * Every connection keeps --pipeline Orders going at the same time. Each Order is taken, confirmed, cooked, given to
+ * its table and billed, and every event is sent as soon as the answer to the one before it says which Order it is
+ * for, so a connection always has several events on the way. Like EventLogGenerator, each connection sends a
+ * receiveShipment before any Order its shipments so far don't cover, so no Order is turned away for lack of stock.
+ *
+ * Without --port, a server is started in this program on a copy of the data folder, as ReplayHarness does, and the
+ * sales it made are printed at the end, which should be one for every Order billed
+ *
+ * Usage: EventLoadClient [--host name] [--port n] [--connections n] [--pipeline n] [--orders n] [--servers n]
+ *                        [--cooks n] [--threads n] [--data folder] [--seed n]
+ * */
+public class EventLoadClient {
+    private static final int RESTOCK = 500; // how much of a short ingredient a shipment brings on top of what is needed
+    private static final String[] DATA_FILES = {"menu.txt", "inventory.txt", "minimums.txt", "inventory.journal"};
+    // the events after takeOrder, sent one at a time as each is answered
+    private static final String[] LIFECYCLE = {"cookConfirmOrder", "cookFinishedOrder", "tableReceivedOrder",
+            "tableRequestedBill"};
+
+    private final List<Food> dishes;
+    private final int servers;
+    private final int cooks;
+    private final int pipeline;
+    private final AtomicLong ordersLeft; // Orders not yet taken, shared by every connection
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final AtomicLong answered = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong billed = new AtomicLong();
+
+    /**
+     * Creates a client that takes the given number of Orders between all its connections
+     * @param menu the foods that can be ordered
+     * @param servers the number of servers, named server1, server2 ...
+     * @param cooks the number of cooks, named cook1, cook2 ...
+     * @param pipeline the number of Orders each connection keeps going at once
+     * @param orders the number of Orders
+     * */
+    EventLoadClient(Collection<Food> menu, int servers, int cooks, int pipeline, long orders){
+        if (menu.isEmpty()){
+            throw new IllegalArgumentException("The menu has no foods to order!");
+        }
+        if (pipeline < 1){
+            throw new IllegalArgumentException("Each connection needs at least one Order at a time!");
+        }
+        this.dishes = new ArrayList<>(menu);
+        this.servers = servers;
+        this.cooks = cooks;
+        this.pipeline = pipeline;
+        this.ordersLeft = new AtomicLong(orders);
+    }
+
+    /**
+     * Runs the given number of connections until every Order has been billed
+     * @param address the address of the EventServer
+     * @param connections the number of connections
+     * @param seed the seed for the foods ordered
+     * */
+    void run(InetSocketAddress address, int connections, long seed) throws IOException{
+        List<Thread> threads = new ArrayList<>();
+        List<IOException> failures = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < connections; i++){
+            Terminal terminal = new Terminal(address, new Random(seed + i));
+            Thread thread = new Thread(() -> {
+                try {
+                    terminal.run();
+                } catch (IOException e){
+                    failures.add(e);
+                }
+            }, "terminal-" + (i + 1));
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads){
+            try {
+                thread.join();
+            } catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!failures.isEmpty()){
+            throw failures.get(0);
+        }
+    }
+
+    // one connection and the Orders it has going
+    private class Terminal {
+        private final InetSocketAddress address;
+        private final Random random;
+        private final Map<String, Integer> stock = new HashMap<>(); // shipped by this terminal and not set aside
+        private final ArrayDeque<Sent> sent = new ArrayDeque<>(); // events waiting for an answer, in order
+        private final StringBuilder batch = new StringBuilder(); // events to send
+        private int open; // Orders taken and not yet billed
+
+        Terminal(InetSocketAddress address, Random random){
+            this.address = address;
+            this.random = random;
+        }
+
+        void run() throws IOException{
+            try (Socket socket = new Socket()) {
+                socket.setTcpNoDelay(true);
+                socket.connect(address);
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                        StandardCharsets.UTF_8));
+                Writer out = new OutputStreamWriter(new BufferedOutputStream(socket.getOutputStream()),
+                        StandardCharsets.UTF_8);
+                while (true){
+                    while (open < pipeline && takeOrder()){
+                        open++;
+                    }
+                    if (sent.isEmpty()){
+                        return;
+                    }
+                    out.write(batch.toString());
+                    out.flush();
+                    batch.setLength(0);
+                    // every answer read may let the next event of an Order be sent
+                    do {
+                        String answer = in.readLine();
+                        if (answer == null){
+                            throw new EOFException("The server closed the connection");
+                        }
+                        handle(answer);
+                    } while (in.ready());
+                }
+            }
+        }
+
+        // queues a takeOrder, and a receiveShipment before it if needed. Returns false once every Order is taken
+        private boolean takeOrder(){
+            if (ordersLeft.getAndDecrement() <= 0){
+                return false;
+            }
+            Map<String, Integer> needed = new HashMap<>();
+            StringBuilder foods = new StringBuilder();
+            int lines = 1 + random.nextInt(3);
+            for (int i = 0; i < lines; i++){
+                Food dish = dishes.get(random.nextInt(dishes.size()));
+                int amount = 1 + random.nextInt(3);
+                if (i > 0){
+                    foods.append(", ");
+                }
+                foods.append(dish).append(" x ").append(amount);
+                for (Map.Entry<String, Integer> entry : dish.getIngredients().entrySet()){
+                    needed.merge(entry.getKey(), entry.getValue() * amount, Integer::sum);
+                }
+            }
+            restockFor(needed);
+            int server = 1 + random.nextInt(servers);
+            send(null, "server" + server + " | takeOrder |  | " + (1 + random.nextInt(40)) + " ; " + foods,
+                    new Ticket(server, 1 + random.nextInt(cooks)));
+            return true;
+        }
+
+        // queues a receiveShipment if this terminal's shipments don't cover the given ingredients, then sets them
+        // aside
+        private void restockFor(Map<String, Integer> needed){
+            StringBuilder shipment = new StringBuilder();
+            for (Map.Entry<String, Integer> entry : needed.entrySet()){
+                int have = stock.getOrDefault(entry.getKey(), 0);
+                if (have < entry.getValue()){
+                    int amount = entry.getValue() - have + RESTOCK;
+                    stock.merge(entry.getKey(), amount, Integer::sum);
+                    if (shipment.length() > 0){
+                        shipment.append(", ");
+                    }
+                    shipment.append(entry.getKey()).append(" x ").append(amount);
+                }
+                stock.merge(entry.getKey(), -entry.getValue(), Integer::sum);
+            }
+            if (shipment.length() > 0){
+                send(null, " | receiveShipment |  | " + shipment, null);
+            }
+        }
+
+        private void send(Ticket ticket, String event, Ticket taking){
+            batch.append(event).append('\n');
+            sent.add(new Sent(taking != null ? taking : ticket, taking != null, System.nanoTime()));
+        }
+
+        // matches an answer to the events it answers, and queues the next event of each of their Orders
+        private void handle(String answer){
+            if (answer.startsWith("OK ")){
+                int count = Integer.parseInt(answer.substring(3));
+                for (int i = 0; i < count; i++){
+                    advance(answered(), -1);
+                }
+            } else if (answer.startsWith("ORDER ")){
+                advance(answered(), Integer.parseInt(answer.substring(6)));
+            } else if (answer.startsWith("ERR ")){
+                errors.incrementAndGet();
+                Sent failed = answered();
+                if (failed.ticket != null){
+                    // the Order is given up on
+                    open--;
+                }
+            } else {
+                throw new IllegalStateException("Unexpected answer " + answer);
+            }
+        }
+
+        private Sent answered(){
+            Sent request = sent.pollFirst();
+            if (request == null){
+                throw new IllegalStateException("More answers than events sent");
+            }
+            latencies.record(System.nanoTime() - request.sentAt);
+            answered.incrementAndGet();
+            return request;
+        }
+
+        // queues the next event of an Order whose last event was done
+        private void advance(Sent request, int orderNumber){
+            Ticket ticket = request.ticket;
+            if (ticket == null){
+                return;
+            }
+            if (request.taking){
+                ticket.number = orderNumber;
+            }
+            if (ticket.step == LIFECYCLE.length){
+                billed.incrementAndGet();
+                open--;
+                return;
+            }
+            String event = LIFECYCLE[ticket.step++];
+            String worker = event.startsWith("cook") ? "cook" + ticket.cook : "server" + ticket.server;
+            send(ticket, worker + " | " + event + " | " + ticket.number + " |", null);
+        }
+    }
+
+    // an Order a terminal has taken
+    private static class Ticket {
+        final int server;
+        final int cook;
+        int number = -1; // known once the takeOrder is answered
+        int step; // the next event in LIFECYCLE
+
+        Ticket(int server, int cook){
+            this.server = server;
+            this.cook = cook;
+        }
+    }
+
+    // an event sent and not yet answered
+    private static class Sent {
+        final Ticket ticket; // null for a receiveShipment
+        final boolean taking; // true for the takeOrder of the Order
+        final long sentAt;
+
+        Sent(Ticket ticket, boolean taking, long sentAt){
+            this.ticket = ticket;
+            this.taking = taking;
+            this.sentAt = sentAt;
+        }
+    }
+
+    public static void main(String[] args) throws IOException{
+        Map<String, String> options = EventLogGenerator.parseOptions(args);
+        int connections = Integer.parseInt(options.getOrDefault("connections", "8"));
+        int pipeline = Integer.parseInt(options.getOrDefault("pipeline", "16"));
+        long orders = Long.parseLong(options.getOrDefault("orders", "100000"));
+        int servers = Integer.parseInt(options.getOrDefault("servers", "3"));
+        int cooks = Integer.parseInt(options.getOrDefault("cooks", "3"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        Path source = Paths.get(options.getOrDefault("data",
+                System.getProperty("restaurant.data", Restaurant.DEFAULT_DATA_FOLDER)));
+
+        Map<String, Food> menu = Restaurant.readMenu(source.resolve("menu.txt").toString(),
+                new TextScanner.NameTable(), new IngredientIndex());
+        EventLoadClient client = new EventLoadClient(menu.values(), servers, cooks, pipeline, orders);
+
+        Restaurant restaurant = null;
+        EventServer server = null;
+        InetSocketAddress address;
+        if (options.containsKey("port")){
+            address = new InetSocketAddress(options.getOrDefault("host", "localhost"),
+                    Integer.parseInt(options.get("port")));
+        } else {
+            // a server of our own on loopback, with the event lines formatted but not printed
+            Path copy = Files.createTempDirectory("restaurant-load");
+            for (String file : DATA_FILES){
+                if (Files.exists(source.resolve(file))){
+                    Files.copy(source.resolve(file), copy.resolve(file));
+                }
+            }
+            List<Server> serverList = new ArrayList<>();
+            for (int i = 1; i <= servers; i++){
+                serverList.add(new Server("server" + i));
+            }
+            List<Cook> cookList = new ArrayList<>();
+            for (int i = 1; i <= cooks; i++){
+                cookList.add(new Cook("cook" + i));
+            }
+            restaurant = new Restaurant(copy.toString(), serverList, cookList);
+            restaurant.setEventLog(EventLog.toText(new PrintStream(OutputStream.nullOutputStream())));
+            server = new EventServer(restaurant, new InetSocketAddress("localhost", 0),
+                    Integer.parseInt(options.getOrDefault("threads", "4")));
+            address = new InetSocketAddress("localhost", server.getPort());
+        }
+
+        long start = System.nanoTime();
+        try {
+            client.run(address, connections, seed);
+        } finally {
+            if (server != null){
+                server.close();
+                restaurant.close();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("Answered %d events in %.1f ms on %d connection(s) with %d orders each: %.0f events/s%n",
+                client.answered.get(), elapsed / 1e6, connections, pipeline, client.answered.get() / (elapsed / 1e9));
+        System.out.println("latency              " + client.latencies);
+        System.out.println("orders billed " + client.billed.get() + ", errors " + client.errors.get());
+        if (restaurant != null){
+            System.out.println("sales " + restaurant.getLedger().getTotalSales());
+        }
+    }
+}
@@ -0,0 +1,554 @@
+package restaurant;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The EventLog class. Writes a line for every event a Restaurant handles without slowing the event down.
+ *
+ * Recording an event only copies a few numbers into a ring buffer shared by every thread: a thread claims its space
+ * with one atomic add and never takes a lock. The names of workers, foods and ingredients are given a number the
+ * first time they are seen. Notes and messages are rarely the same twice, so they are copied into the record as a
+ * length and UTF-8 bytes, four to an int, instead of being kept forever under a number. A background thread takes
+ * the records out of the ring in the order they were claimed and either formats them into the lines Restaurant used
+ * to print, or writes them to a binary file as they are, to be turned into those lines later by EventLogDecoder. If
+ * the ring is full, recording waits for the background thread to catch up, so no line is ever lost.
+ *
+ * A record is a header, holding its type and the number of ints that follow, then those ints packed two to a long.
+ * The binary file starts with MAGIC, followed by records of the form
+ * type byte, int count, ints
+ * with a NAME record (type 0, then the number and the text in modified UTF-8) before the first record using a name
+ * */
+class EventLog implements Closeable {
+    static final String MAGIC = "RLOG2";
+
+    // the types of record, each formatted as in format
+    static final int NAME = 0;
+    static final int PLACED = 1;
+    static final int CONFIRMED = 2;
+    static final int COOKED = 3;
+    static final int CANCELLED = 4;
+    static final int RECEIVED = 5;
+    static final int REJECTED = 6;
+    static final int BILLED = 7;
+    static final int SHIPMENT = 8;
+    static final int UNRECOGNIZED = 9;
+    static final int REMAKE_FAILED = 10;
+    static final int REMAKE = 11;
+    static final int TURNED_AWAY = 12;
+    static final int SKIPPED = 13;
+
+    private static final int RING_LONGS = 1 << 16; // the size of the ring, 512 KB
+    private static final int MAX_INTS = 2 * (RING_LONGS / 4); // the most ints one record may hold
+    private static final long IDLE_NANOS = 1_000_000; // how long the background thread sleeps between batches
+    private static final long MAX_DELAY_NANOS = 20_000_000; // the longest a line waits while the ring is quiet
+
+    private final AtomicLongArray ring = new AtomicLongArray(RING_LONGS);
+    private final AtomicLong claimed = new AtomicLong(); // the position the next record starts at
+    private volatile long consumed; // the position of the first record not yet taken out of the ring
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>(); // the number of every name seen so far
+    private final Map<Integer, String> names = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    private final Sink sink;
+    private final Thread consumer;
+    private final Thread shutdownHook;
+    private volatile boolean closing;
+
+    private EventLog(Sink sink){
+        this.sink = sink;
+        consumer = new Thread(this::consume, "event-log");
+        consumer.setDaemon(true);
+        consumer.start();
+        // the lines recorded before the program exits are still written, even if it ends with an exception
+        shutdownHook = new Thread(this::drain, "event-log-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Creates a log that writes every event as a line of text
+     * @param out where the lines are printed, such as System.out
+     * */
+    static EventLog toText(PrintStream out){
+        return new EventLog(new TextSink(out));
+    }
+
+    /**
+     * Creates a log that writes every event to a binary file, which EventLogDecoder turns into text
+     * @param file the file, replaced if it exists
+     * */
+    static EventLog toFile(String file) throws IOException{
+        return new EventLog(new BinarySink(file));
+    }
+
+    // Order n placed with foods: [...] by Server s
+    void placed(Order order, String server){
+        List<OrderLine> lines = order.getLines();
+        long at = claim(PLACED, 2 + 2 * lines.size());
+        long pending = pair(order.orderNumber, idOf(server));
+        int i = 0;
+        for (OrderLine line : lines){
+            put(at, i++, pending);
+            pending = pair(idOf(line.getFood().toString()), line.getQuantity());
+        }
+        put(at, i, pending);
+        publish(at, PLACED, 2 + 2 * lines.size());
+    }
+
+    // Cook c confirmed order n
+    void confirmed(String cook, int orderNumber){
+        record(CONFIRMED, idOf(cook), orderNumber);
+    }
+
+    // Cook c cooked order n
+    void cooked(String cook, int orderNumber){
+        record(COOKED, idOf(cook), orderNumber);
+    }
+
+    // Server s cancelled order n for reason r
+    void cancelled(String server, int orderNumber, String notes){
+        record(CANCELLED, notes, idOf(server), orderNumber);
+    }
+
+    // Server s gave order n to table t
+    void received(String server, int orderNumber, int tableNumber){
+        record(RECEIVED, idOf(server), orderNumber, tableNumber);
+    }
+
+    // Server s rejected order n from table t for reason r
+    void rejected(String server, int orderNumber, int tableNumber, String notes){
+        record(REJECTED, notes, idOf(server), orderNumber, tableNumber);
+    }
+
+    // Server s gave bill of p to table t
+    void billed(String server, long priceCents, int tableNumber){
+        long at = claim(BILLED, 4);
+        put(at, 0, pair(idOf(server), tableNumber));
+        put(at, 1, priceCents);
+        publish(at, BILLED, 4);
+    }
+
+    // Received shipment of {ingredient=amount, ...}, in the order the shipment map lists them
+    void shipment(Map<String, Integer> shipment){
+        long at = claim(SHIPMENT, 2 * shipment.size());
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : shipment.entrySet()){
+            put(at, i++, pair(idOf(entry.getKey()), entry.getValue()));
+        }
+        publish(at, SHIPMENT, 2 * shipment.size());
+    }
+
+    // Event t not recognized
+    void unrecognized(String eventType){
+        record(UNRECOGNIZED, eventType);
+    }
+
+    // Order n can't be remade: message
+    void remakeFailed(int orderNumber, String message){
+        record(REMAKE_FAILED, message, orderNumber);
+    }
+
+    // Order n turned away: message
+    void turnedAway(int orderNumber, String message){
+        record(TURNED_AWAY, message, orderNumber);
+    }
+
+    // Event t for order n skipped, the order was turned away
+    void skipped(String eventType, int orderNumber){
+        record(SKIPPED, eventType, orderNumber);
+    }
+
+    // Order n is remade, attempt a
+    void remake(int orderNumber, int attempt){
+        record(REMAKE, orderNumber, attempt);
+    }
+
+    /**
+     * Waits until every event recorded so far has been written, then stops the background thread and closes the
+     * file. Events recorded later are dropped
+     * */
+    @Override
+    public void close(){
+        drain();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e){
+            // already shutting down, the hook is what is closing the log
+        }
+    }
+
+    // writes everything recorded so far and stops the background thread
+    private void drain(){
+        if (closing){
+            return;
+        }
+        closing = true;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // returns the number of a name, giving it the next number the first time it is seen
+    private int idOf(String name){
+        if (name == null){
+            name = "null";
+        }
+        Integer id = ids.get(name);
+        if (id != null){
+            return id;
+        }
+        synchronized (ids){
+            id = ids.get(name);
+            if (id == null){
+                id = nextId.getAndIncrement();
+                // the name is known before its number can be read from the ring
+                names.put(id, name);
+                ids.put(name, id);
+            }
+            return id;
+        }
+    }
+
+    private void record(int type, int a, int b){
+        long at = claim(type, 2);
+        put(at, 0, pair(a, b));
+        publish(at, type, 2);
+    }
+
+    private void record(int type, int a, int b, int c){
+        long at = claim(type, 4);
+        put(at, 0, pair(a, b));
+        put(at, 1, pair(c, 0));
+        publish(at, type, 4);
+    }
+
+    // records the given numbers followed by a text, as its length in bytes and then its UTF-8 bytes four to an int.
+    // A text too long for one record is cut short
+    private void record(int type, String text, int... numbers){
+        byte[] bytes = String.valueOf(text).getBytes(StandardCharsets.UTF_8);
+        int room = 4 * (MAX_INTS - numbers.length - 1);
+        if (bytes.length > room){
+            bytes = Arrays.copyOf(bytes, room);
+        }
+        int count = numbers.length + 1 + (bytes.length + 3) / 4;
+        int[] ints = Arrays.copyOf(numbers, count + 1);
+        ints[numbers.length] = bytes.length;
+        for (int i = 0; i < bytes.length; i++){
+            ints[numbers.length + 1 + i / 4] |= (bytes[i] & 0xff) << (24 - 8 * (i % 4));
+        }
+        long at = claim(type, count);
+        for (int i = 0; i < count; i += 2){
+            put(at, i / 2, pair(ints[i], ints[i + 1]));
+        }
+        publish(at, type, count);
+    }
+
+    // reads a text recorded after the numbers of a record, starting at the given int
+    private static String text(int[] ints, int from){
+        byte[] bytes = new byte[ints[from]];
+        for (int i = 0; i < bytes.length; i++){
+            bytes[i] = (byte) (ints[from + 1 + i / 4] >>> (24 - 8 * (i % 4)));
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // claims the space for a record holding the given number of ints, waiting if the ring is full
+    private long claim(int type, int ints){
+        if (ints > MAX_INTS){
+            throw new IllegalArgumentException("That event is too big to log!");
+        }
+        int longs = 1 + (ints + 1) / 2;
+        long at = claimed.getAndAdd(longs);
+        int spins = 0;
+        while (at + longs - consumed > RING_LONGS){
+            if (closing && !consumer.isAlive()){
+                throw new IllegalStateException("The event log is closed!");
+            }
+            if (++spins < 100){
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(10_000);
+            }
+        }
+        return at;
+    }
+
+    // writes the given long of a record's body
+    private void put(long at, int index, long value){
+        ring.setPlain((int) ((at + 1 + index) & (RING_LONGS - 1)), value);
+    }
+
+    // writes the header of a record, after which the background thread may read it
+    private void publish(long at, int type, int ints){
+        ring.setRelease((int) (at & (RING_LONGS - 1)), ((long) (type + 1) << 32) | ints);
+    }
+
+    private static long pair(int high, int low){
+        return ((long) high << 32) | (low & 0xffffffffL);
+    }
+
+    // takes records out of the ring in order and hands them to the sink, until closed and empty. The records are
+    // taken in batches, once the ring is half full or the oldest has waited long enough, so the background thread
+    // wakes up rarely instead of taking turns with the threads handling events after every record
+    private void consume(){
+        int[] ints = new int[MAX_INTS + 1];
+        long position = consumed;
+        long lastBatch = System.nanoTime();
+        try {
+            while (true){
+                if (!closing && claimed.get() - position < RING_LONGS / 2
+                        && System.nanoTime() - lastBatch < MAX_DELAY_NANOS){
+                    LockSupport.parkNanos(IDLE_NANOS);
+                    continue;
+                }
+                long header = ring.getAcquire((int) (position & (RING_LONGS - 1)));
+                if (header == 0){
+                    // the ring is empty, or the next record is still being written
+                    sink.flush();
+                    lastBatch = System.nanoTime();
+                    if (closing && position == claimed.get()){
+                        break;
+                    }
+                    Thread.yield();
+                    continue;
+                }
+                int type = (int) (header >>> 32) - 1;
+                int count = (int) header;
+                int longs = 1 + (count + 1) / 2;
+                for (int i = 0; i < longs - 1; i++){
+                    int index = (int) ((position + 1 + i) & (RING_LONGS - 1));
+                    long value = ring.getPlain(index);
+                    ints[2 * i] = (int) (value >>> 32);
+                    ints[2 * i + 1] = (int) value;
+                    ring.setPlain(index, 0);
+                }
+                ring.setPlain((int) (position & (RING_LONGS - 1)), 0);
+                position += longs;
+                consumed = position;
+                sink.write(type, ints, count, names);
+            }
+        } catch (IOException e){
+            e.printStackTrace();
+        } finally {
+            try {
+                sink.close();
+            } catch (IOException e){
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Formats one record as the line Restaurant prints for it
+     * @param type the type of the record
+     * @param ints the ints of the record
+     * @param count how many of them there are
+     * @param names the name of every number used
+     * */
+    static String format(int type, int[] ints, int count, Map<Integer, String> names){
+        switch (type){
+            case PLACED:
+                StringBuilder foods = new StringBuilder("[");
+                for (int i = 2; i < count; i += 2){
+                    for (int unit = 0; unit < ints[i + 1]; unit++){
+                        if (foods.length() > 1){
+                            foods.append(", ");
+                        }
+                        foods.append(names.get(ints[i]));
+                    }
+                }
+                foods.append(']');
+                return "Order " + ints[0] + " placed with foods: " + foods + " by Server " + names.get(ints[1]);
+            case CONFIRMED:
+                return "Cook " + names.get(ints[0]) + " confirmed order" + ints[1];
+            case COOKED:
+                return "Cook " + names.get(ints[0]) + " cooked order" + ints[1];
+            case CANCELLED:
+                return "Server " + names.get(ints[0]) + " cancelled order " + ints[1] + " for reason "
+                        + text(ints, 2);
+            case RECEIVED:
+                return "Server " + names.get(ints[0]) + " gave order " + ints[1] + " to table " + ints[2];
+            case REJECTED:
+                return "Server " + names.get(ints[0]) + " rejected order " + ints[1] + " from table " + ints[2]
+                        + " for reason " + text(ints, 3);
+            case BILLED:
+                long cents = ((long) ints[2] << 32) | (ints[3] & 0xffffffffL);
+                return "Server " + names.get(ints[0]) + " gave bill of " + cents / 100f + " to table " + ints[1];
+            case SHIPMENT:
+                StringBuilder shipment = new StringBuilder("{");
+                for (int i = 0; i < count; i += 2){
+                    if (i > 0){
+                        shipment.append(", ");
+                    }
+                    shipment.append(names.get(ints[i])).append('=').append(ints[i + 1]);
+                }
+                return "Received shipment of " + shipment.append('}');
+            case UNRECOGNIZED:
+                return "Event " + text(ints, 0) + "not recognized";
+            case REMAKE_FAILED:
+                return "Order " + ints[0] + " can't be remade: " + text(ints, 1);
+            case REMAKE:
+                return "Order " + ints[0] + " is remade, attempt " + ints[1];
+            case TURNED_AWAY:
+                return "Order " + ints[0] + " turned away: " + text(ints, 1);
+            case SKIPPED:
+                return "Event " + text(ints, 1) + " for order " + ints[0] + " skipped, the order was turned away";
+            default:
+                throw new IllegalArgumentException("Unknown event log record " + type);
+        }
+    }
+
+    /**
+     * Turns a binary log written by toFile back into lines of text
+     * @param in the binary log
+     * @param out where the lines are written
+     * @return the number of lines written
+     * */
+    static long decode(InputStream in, PrintStream out) throws IOException{
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        byte[] magic = new byte[MAGIC.length()];
+        data.readFully(magic);
+        if (!new String(magic, "US-ASCII").equals(MAGIC)){
+            throw new IllegalArgumentException("That isn't an event log!");
+        }
+        Map<Integer, String> names = new HashMap<>();
+        int[] ints = new int[MAX_INTS + 1];
+        long lines = 0;
+        while (true){
+            int type = data.read();
+            if (type == -1){
+                return lines;
+            }
+            if (type == NAME){
+                int id = data.readInt();
+                names.put(id, data.readUTF());
+                continue;
+            }
+            int count = data.readInt();
+            if (count < 0 || count > MAX_INTS){
+                throw new IllegalArgumentException("Corrupt event log record of " + count + " ints");
+            }
+            for (int i = 0; i < count; i++){
+                ints[i] = data.readInt();
+            }
+            out.println(format(type, ints, count, names));
+            lines++;
+        }
+    }
+
+    // where the background thread puts the records
+    private interface Sink extends Closeable {
+        void write(int type, int[] ints, int count, Map<Integer, String> names) throws IOException;
+
+        // called whenever the ring is empty
+        void flush() throws IOException;
+    }
+
+    // formats every record into a line of text
+    private static class TextSink implements Sink {
+        private final PrintStream out;
+        private final StringBuilder lines = new StringBuilder();
+
+        TextSink(PrintStream out){
+            this.out = out;
+        }
+
+        @Override
+        public void write(int type, int[] ints, int count, Map<Integer, String> names){
+            lines.append(format(type, ints, count, names)).append(System.lineSeparator());
+            if (lines.length() > 1 << 16){
+                flush();
+            }
+        }
+
+        @Override
+        public void flush(){
+            if (lines.length() > 0){
+                out.print(lines);
+                out.flush();
+                lines.setLength(0);
+            }
+        }
+
+        @Override
+        public void close(){
+            flush();
+        }
+    }
+
+    // writes every record to a file as it is, with each name written once before it is first used
+    private static class BinarySink implements Sink {
+        private final DataOutputStream out;
+        private final BitSet written = new BitSet(); // the names already in the file
+
+        BinarySink(String file) throws IOException{
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+            out.writeBytes(MAGIC);
+        }
+
+        @Override
+        public void write(int type, int[] ints, int count, Map<Integer, String> names) throws IOException{
+            for (int id : namesUsed(type, ints, count)){
+                if (id >= 0 && !written.get(id)){
+                    written.set(id);
+                    out.writeByte(NAME);
+                    out.writeInt(id);
+                    out.writeUTF(names.get(id));
+                }
+            }
+            out.writeByte(type);
+            out.writeInt(count);
+            for (int i = 0; i < count; i++){
+                out.writeInt(ints[i]);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException{
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException{
+            out.close();
+        }
+
+        // returns the numbers of the names a record uses
+        private static int[] namesUsed(int type, int[] ints, int count){
+            switch (type){
+                case PLACED:
+                    int[] used = new int[count / 2];
+                    used[0] = ints[1];
+                    for (int i = 2; i < count; i += 2){
+                        used[i / 2] = ints[i];
+                    }
+                    return used;
+                case SHIPMENT:
+                    int[] ingredients = new int[count / 2];
+                    for (int i = 0; i < count; i += 2){
+                        ingredients[i / 2] = ints[i];
+                    }
+                    return ingredients;
+                case UNRECOGNIZED:
+                case REMAKE_FAILED:
+                case TURNED_AWAY:
+                case SKIPPED:
+                case REMAKE:
+                    return new int[0];
+                default:
+                    // CONFIRMED, COOKED, CANCELLED, RECEIVED, REJECTED and BILLED start with a name
+                    return new int[]{ints[0]};
+            }
+        }
+    }
+}
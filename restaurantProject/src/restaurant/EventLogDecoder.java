@@ -0,0 +1,32 @@
+package restaurant;
+
+import java.io.*;
+import java.util.Map;
+
+/**
+ * The EventLogDecoder class. Turns the events.bin file written with -Drestaurant.log=binary back into the lines a
+ * Restaurant prints for its events, one per event in the order they happened. See EventLog
+ *
+ * Usage: EventLogDecoder --in file [--out file]
+ * */
+public class EventLogDecoder {
+    public static void main(String[] args) throws IOException{
+        Map<String, String> options = EventLogGenerator.parseOptions(args);
+        String in = options.get("in");
+        if (in == null){
+            throw new IllegalArgumentException("Usage: EventLogDecoder --in file [--out file]");
+        }
+        try (InputStream input = new FileInputStream(in)) {
+            if (options.containsKey("out")){
+                try (PrintStream output = new PrintStream(new BufferedOutputStream(
+                        new FileOutputStream(options.get("out")), 1 << 16))) {
+                    long lines = EventLog.decode(input, output);
+                    System.out.println("Decoded " + lines + " events to " + options.get("out"));
+                }
+            } else {
+                EventLog.decode(input, System.out);
+                System.out.flush();
+            }
+        }
+    }
+}
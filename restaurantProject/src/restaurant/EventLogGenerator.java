@@ -0,0 +1,258 @@
+package restaurant;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * The EventLogGenerator class. Writes events files of any size for load testing, in the same
+ * worker | type | orderId | notes format as events.txt.
+ *
+ * Orders are numbered in the order their takeOrder events are written, as Restaurant numbers them when a file is
+ * replayed from the start. Every Order goes through a valid lifecycle: it is confirmed and cooked by one cook, then
+ * either received by its table (and usually billed) or rejected. A rejected Order is remade under the same order
+ * number, and the remake goes through the same lifecycle. Dishes are picked with a fixed popularity mix and
+ * some get extra or fewer ingredients. The generator keeps track of the stock its Orders set aside when they are taken
+ * and writes a receiveShipment before any Order could be turned away, so a replay never fails for lack of stock. The
+ * same seed always gives the same file
+ *
+ * Usage: EventLogGenerator [--orders n] [--tables n] [--servers n] [--cooks n] [--seed n] [--menu file] [--out file]
+ * */
+public class EventLogGenerator {
+    // how popular each dish is, higher is more popular. Dishes on the menu that aren't listed get a weight of 1
+    private static final Map<String, Integer> POPULARITY = Map.of(
+            "Burger", 25, "Fries", 20, "Soda", 20, "Salad", 10, "Spaghetti", 8, "Pizza", 8, "Fried Chicken", 5,
+            "Steak", 4);
+
+    private static final double CHANGE_CHANCE = 0.15; // chance that a dish has an ingredient added or removed
+    private static final double REJECT_CHANCE = 0.03; // chance that a cooked Order is rejected
+    private static final double BILL_CHANCE = 0.9; // chance that a table asks for the bill after receiving an Order
+    private static final int RESTOCK = 500; // how much of a short ingredient a shipment brings on top of what is needed
+
+    private final Random random;
+    private final int tables;
+    private final int servers;
+    private final int cooks;
+    private final List<Food> dishes;
+    private final int[] cumulativeWeights;
+    private final List<String> ingredients;
+
+    private final Map<String, Integer> stock = new HashMap<>(); // the stock this log has shipped and not set aside yet
+    private final List<Ticket> open = new ArrayList<>(); // Orders that haven't been received or rejected yet
+    private int nextOrder = 1;
+    private int taken; // the number of takeOrder events written, not counting remakes
+
+    /**
+     * Creates a generator for the given menu
+     * @param menu the foods that can be ordered
+     * @param tables the number of tables
+     * @param servers the number of servers, named server1, server2 ...
+     * @param cooks the number of cooks, named cook1, cook2 ...
+     * @param seed the seed for every random choice
+     * */
+    EventLogGenerator(Collection<Food> menu, int tables, int servers, int cooks, long seed){
+        if (menu.isEmpty()){
+            throw new IllegalArgumentException("The menu has no foods to order!");
+        }
+        this.random = new Random(seed);
+        this.tables = tables;
+        this.servers = servers;
+        this.cooks = cooks;
+        this.dishes = new ArrayList<>(menu);
+        this.cumulativeWeights = new int[dishes.size()];
+        Set<String> allIngredients = new TreeSet<>();
+        int total = 0;
+        for (int i = 0; i < dishes.size(); i++){
+            total += POPULARITY.getOrDefault(dishes.get(i).toString(), 1);
+            cumulativeWeights[i] = total;
+            for (String ingredient : dishes.get(i).getIngredients().keySet()){
+                // a change is written as +name, so only one-word ingredients can be changed
+                if (!ingredient.contains(" ")){
+                    allIngredients.add(ingredient);
+                }
+            }
+        }
+        this.ingredients = new ArrayList<>(allIngredients);
+    }
+
+    /**
+     * Writes a log with the given number of Orders. At most as many Orders as there are tables are open at a time
+     * @param out where the events are written
+     * @param orders the number of Orders
+     * */
+    void generate(PrintWriter out, int orders){
+        while (taken < orders || !open.isEmpty()){
+            boolean canTake = taken < orders && open.size() < tables;
+            if (canTake && (open.isEmpty() || random.nextInt(5) == 0)){
+                takeOrder(out);
+            } else {
+                advance(out, open.get(random.nextInt(open.size())));
+            }
+        }
+    }
+
+    private void takeOrder(PrintWriter out){
+        Ticket ticket = new Ticket(nextOrder++, 1 + random.nextInt(servers), 1 + random.nextInt(cooks), 0);
+        taken++;
+        StringBuilder foods = new StringBuilder();
+        int lines = 1 + random.nextInt(3);
+        for (int i = 0; i < lines; i++){
+            Food dish = pickDish();
+            int amount = 1 + random.nextInt(3);
+            if (i > 0){
+                foods.append(", ");
+            }
+            foods.append(dish).append(" x ").append(amount);
+
+            Map<String, Integer> perUnit = dish.getIngredients();
+            List<String> own = new ArrayList<>();
+            for (String ingredient : perUnit.keySet()){
+                if (!ingredient.contains(" ")){
+                    own.add(ingredient);
+                }
+            }
+            if (random.nextDouble() < CHANGE_CHANCE && !ingredients.isEmpty()){
+                if (own.isEmpty() || random.nextBoolean()){
+                    String added = ingredients.get(random.nextInt(ingredients.size()));
+                    foods.append(" +").append(added);
+                    perUnit.merge(added, 1, Integer::sum);
+                } else {
+                    String removed = own.get(random.nextInt(own.size()));
+                    foods.append(" -").append(removed);
+                    perUnit.computeIfPresent(removed, (k, v) -> v > 1 ? v - 1 : null);
+                }
+            }
+            for (Map.Entry<String, Integer> entry : perUnit.entrySet()){
+                ticket.needed.merge(entry.getKey(), entry.getValue() * amount, Integer::sum);
+            }
+        }
+        // the Restaurant sets the ingredients aside as soon as the Order is taken
+        restockFor(out, ticket.needed);
+        for (Map.Entry<String, Integer> entry : ticket.needed.entrySet()){
+            stock.merge(entry.getKey(), -entry.getValue(), Integer::sum);
+        }
+        open.add(ticket);
+        out.println("server" + ticket.server + " | takeOrder |  | " + ticket.table() + " ; " + foods);
+    }
+
+    // writes the next event in the lifecycle of the given Order
+    private void advance(PrintWriter out, Ticket ticket){
+        switch (ticket.stage){
+            case PENDING:
+                out.println("cook" + ticket.cook + " | cookConfirmOrder | " + ticket.number + " |");
+                ticket.stage = OrderStatus.IN_PROGRESS;
+                break;
+            case IN_PROGRESS:
+                out.println("cook" + ticket.cook + " | cookFinishedOrder | " + ticket.number + " |");
+                ticket.stage = OrderStatus.COOKED;
+                break;
+            default:
+                open.remove(ticket);
+                if (random.nextDouble() < REJECT_CHANCE){
+                    // the Restaurant places a remake with the same foods, setting its ingredients aside
+                    Ticket remake = new Ticket(ticket.number, ticket.server, 1 + random.nextInt(cooks), ticket.table());
+                    remake.needed.putAll(ticket.needed);
+                    restockFor(out, remake.needed);
+                    for (Map.Entry<String, Integer> entry : remake.needed.entrySet()){
+                        stock.merge(entry.getKey(), -entry.getValue(), Integer::sum);
+                    }
+                    open.add(remake);
+                    out.println("server" + ticket.server + " | tableRejectedOrder | " + ticket.number
+                            + " | Food was cold");
+                } else {
+                    out.println("server" + ticket.server + " | tableReceivedOrder | " + ticket.number);
+                    if (random.nextDouble() < BILL_CHANCE){
+                        out.println("server" + ticket.server + " | tableRequestedBill | " + ticket.number);
+                    }
+                }
+        }
+    }
+
+    // writes a receiveShipment if the stock shipped so far doesn't cover the given ingredients
+    private void restockFor(PrintWriter out, Map<String, Integer> needed){
+        StringBuilder shipment = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : needed.entrySet()){
+            int have = stock.getOrDefault(entry.getKey(), 0);
+            if (have < entry.getValue()){
+                int amount = entry.getValue() - have + RESTOCK;
+                stock.merge(entry.getKey(), amount, Integer::sum);
+                if (shipment.length() > 0){
+                    shipment.append(", ");
+                }
+                shipment.append(entry.getKey()).append(" x ").append(amount);
+            }
+        }
+        if (shipment.length() > 0){
+            out.println(" | receiveShipment |  | " + shipment);
+        }
+    }
+
+    private Food pickDish(){
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++){
+            if (pick < cumulativeWeights[i]){
+                return dishes.get(i);
+            }
+        }
+        return dishes.get(dishes.size() - 1);
+    }
+
+    // an Order the generator has written a takeOrder for
+    private class Ticket {
+        final int number;
+        final int server;
+        final int cook;
+        final int table; // 0 for the table the number gives
+        final Map<String, Integer> needed = new HashMap<>();
+        OrderStatus stage = OrderStatus.PENDING;
+
+        Ticket(int number, int server, int cook, int table){
+            this.number = number;
+            this.server = server;
+            this.cook = cook;
+            this.table = table;
+        }
+
+        // the table the Order is for. A remake is for the table of the Order it remakes
+        int table(){
+            return table != 0 ? table : 1 + (number - 1) % tables;
+        }
+    }
+
+    public static void main(String[] args) throws IOException{
+        Map<String, String> options = parseOptions(args);
+        int orders = Integer.parseInt(options.getOrDefault("orders", "100000"));
+        int tables = Integer.parseInt(options.getOrDefault("tables", "40"));
+        int servers = Integer.parseInt(options.getOrDefault("servers", "3"));
+        int cooks = Integer.parseInt(options.getOrDefault("cooks", "3"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        String menuFile = options.getOrDefault("menu", Restaurant.DATA_FOLDER + "/menu.txt");
+        String outFile = options.getOrDefault("out", "events-" + orders + ".txt");
+
+        Map<String, Food> menu = Restaurant.readMenu(menuFile, new TextScanner.NameTable(), new IngredientIndex());
+        EventLogGenerator generator = new EventLogGenerator(menu.values(), tables, servers, cooks, seed);
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(Files.newBufferedWriter(Paths.get(outFile)),
+                1 << 16))){
+            generator.generate(out, orders);
+        }
+        System.out.println("Wrote " + orders + " orders to " + outFile);
+    }
+
+    /**
+     * Reads arguments of the form --name value
+     * @param args the program arguments
+     * */
+    static Map<String, String> parseOptions(String[] args){
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++){
+            if (!args[i].startsWith("--") || i + 1 == args.length){
+                throw new IllegalArgumentException("Expected --name value but found " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,157 @@
+package restaurant;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The EventRecord class. One line of the events file, already split into its parts:
+ *
+ * Server/Cook doing event | Type of Event | Order that Event is happening on | Notes
+ *
+ * The notes of a takeOrder event are read into a table number and a list of OrderItems, and the notes of a
+ * receiveShipment event into a map of ingredients
+ * */
+class EventRecord {
+    final String workerName;
+    final String eventType;
+    final int orderId; // -1 if the event is not about an existing Order
+    final String notes;
+
+    final int tableNumber; // takeOrder only
+    final List<OrderItem> items; // takeOrder only
+    final Map<String, Integer> shipment; // receiveShipment only
+
+    private EventRecord(String workerName, String eventType, int orderId, String notes, int tableNumber,
+                        List<OrderItem> items, Map<String, Integer> shipment){
+        this.workerName = workerName;
+        this.eventType = eventType;
+        this.orderId = orderId;
+        this.notes = notes;
+        this.tableNumber = tableNumber;
+        this.items = items;
+        this.shipment = shipment;
+    }
+
+    /**
+     * Reads the current line of the scanner as an event
+     * @param scanner a scanner positioned on an event line
+     * @throws IllegalArgumentException if the line is badly formed
+     * */
+    static EventRecord parse(TextScanner scanner){
+        TextScanner.Field line = scanner.line(scanner.new Field());
+        TextScanner.Field field = scanner.new Field();
+
+        int fields = line.count((byte) '|');
+        if (fields < 3 || fields > 4){
+            throw scanner.fail("expected 3 or 4 fields separated by '|' but found " + fields);
+        }
+        line.next((byte) '|', field);
+        String workerName = field.toName();
+        line.next((byte) '|', field);
+        String eventType = field.toName();
+        line.next((byte) '|', field);
+        int orderId = field.isEmpty() ? -1 : field.toInt("an order number");
+        TextScanner.Field notes = scanner.new Field();
+        if (!line.next((byte) '|', notes)){
+            notes.over(line.end, line.end);
+        }
+
+        int tableNumber = -1;
+        List<OrderItem> items = Collections.emptyList();
+        Map<String, Integer> shipment = Collections.emptyMap();
+        String noteText = "";
+        switch (eventType){
+            case "takeOrder":
+                TextScanner.Field table = scanner.new Field();
+                TextScanner.Field foods = scanner.new Field();
+                if (!notes.next((byte) ';', table) || !notes.next((byte) ';', foods)){
+                    throw scanner.fail("expected \"table ; foods\" in the notes of takeOrder");
+                }
+                tableNumber = table.toInt("a table number");
+                items = parseItems(scanner, foods);
+                break;
+            case "receiveShipment":
+                shipment = parseShipment(scanner, notes);
+                break;
+            default:
+                // other events only need their notes as text, e.g. why an Order was rejected
+                noteText = notes.isEmpty() ? "" : notes.toString();
+        }
+        return new EventRecord(workerName, eventType, orderId, noteText, tableNumber, items, shipment);
+    }
+
+    // reads "Burger x 2 +lettuce, Fries x 1 -salt"
+    private static List<OrderItem> parseItems(TextScanner scanner, TextScanner.Field foods){
+        List<OrderItem> items = new ArrayList<>();
+        TextScanner.Field item = scanner.new Field();
+        TextScanner.Field name = scanner.new Field();
+        TextScanner.Field rest = scanner.new Field();
+        TextScanner.Field word = scanner.new Field();
+        while (foods.next((byte) ',', item)){
+            if (item.isEmpty()){
+                continue;
+            }
+            if (!item.splitAround((byte) 'x', name, rest) || !rest.nextWord(word)){
+                throw scanner.fail("expected \"food x amount\" but found \"" + item + "\"");
+            }
+            OrderItem orderItem = new OrderItem(name.toName(), toAmount(scanner, word));
+            while (rest.nextWord(word)){
+                if (word.first() == '+'){
+                    orderItem.additions.add(word.skipFirst().toName());
+                } else if (word.first() == '-'){
+                    orderItem.removals.add(word.skipFirst().toName());
+                }
+            }
+            items.add(orderItem);
+        }
+        return items;
+    }
+
+    // reads "bread x 2, eggs x 12"
+    private static Map<String, Integer> parseShipment(TextScanner scanner, TextScanner.Field notes){
+        Map<String, Integer> shipment = new HashMap<>();
+        TextScanner.Field item = scanner.new Field();
+        TextScanner.Field name = scanner.new Field();
+        TextScanner.Field amount = scanner.new Field();
+        while (notes.next((byte) ',', item)){
+            if (item.isEmpty()){
+                continue;
+            }
+            if (!item.splitAround((byte) 'x', name, amount)){
+                throw scanner.fail("expected \"ingredient x amount\" but found \"" + item + "\"");
+            }
+            shipment.merge(name.toName(), toAmount(scanner, amount), Integer::sum);
+        }
+        return shipment;
+    }
+
+    // reads an amount of food or of an ingredient, which has to be at least 1
+    private static int toAmount(TextScanner scanner, TextScanner.Field field){
+        int amount = field.toInt("an amount");
+        if (amount < 1){
+            throw scanner.fail("expected an amount of at least 1 but found " + amount);
+        }
+        return amount;
+    }
+
+    /**
+     * One food of a takeOrder event: the name of the food, how many were ordered and the ingredients added to or
+     * removed from each of them
+     * */
+    static class OrderItem {
+        final String foodName;
+        final int amount;
+        final List<String> additions;
+        final List<String> removals;
+
+        OrderItem(String foodName, int amount){
+            this.foodName = foodName;
+            this.amount = amount;
+            this.additions = new ArrayList<>(1);
+            this.removals = new ArrayList<>(1);
+        }
+    }
+}
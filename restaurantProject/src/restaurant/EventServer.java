@@ -0,0 +1,467 @@
+package restaurant;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The EventServer class. Takes events from point-of-sale terminals over TCP while the Restaurant is running, instead
+ * of from events.txt.
+ *
+ * A terminal sends events as lines in the same worker | type | orderId | notes format as events.txt and may send
+ * as many as it likes without waiting for the answers. Every event gets an answer, in the order the events were sent:
+ * OK n            the next n events were done
+ * ORDER n         the next event placed Order n: a takeOrder its new Order, or a tableRejectedOrder the remake.
+ *                 A cookConfirmOrder without an order number is answered with the Order the Cook was given
+ * ERR message     the next event failed or was turned away, with the reason
+ * Answers that are ready at the same time are written together, and a run of events that were done is answered with
+ * one OK line.
+ *
+ * One thread reads and writes every connection without ever blocking, and hands each event to a worker thread chosen
+ * by its order number, so the events of one Order are done in the order they arrived whichever terminal sent them.
+ * A takeOrder gets its order number when it is read. Events without an order number, such as receiveShipment, wait
+ * for every earlier event from the same terminal to be done, and later events from that terminal wait for them, so
+ * a terminal can send a shipment followed by the Orders that need it.
+ *
+ * A terminal can have at most MAX_IN_FLIGHT events waiting for an answer. Past that, or while its answers aren't
+ * being read, the server stops reading from it until it catches up, so a fast terminal slows down rather than
+ * filling the server's memory, and the other terminals are not held up
+ *
+ * Usage: EventServer [--port n] [--threads n] [--servers n] [--cooks n] [--data folder]
+ * */
+public class EventServer implements Closeable {
+    static final int DEFAULT_PORT = 7070;
+    static final int MAX_IN_FLIGHT = 1024; // events a connection may have waiting for an answer
+    private static final int BUFFER_SIZE = 64 * 1024; // the longest line that can be sent, and the answers buffered
+    private static final int MAX_MESSAGE = 512; // longer error messages are cut short
+    private static final long CLOSE_TIMEOUT_MILLIS = 10000; // how long close waits for terminals to read their answers
+    private static final Request END = new Request(null);
+
+    private final Restaurant restaurant;
+    private final Selector selector;
+    private final ServerSocketChannel listener;
+    private final List<BlockingQueue<Request>> queues = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private final Queue<Connection> answered = new ConcurrentLinkedQueue<>(); // connections with new answers
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    private volatile boolean closed;
+
+    /**
+     * Starts listening on the given port and handling events for the given Restaurant
+     * @param restaurant the Restaurant the events happen in
+     * @param address the address to listen on. Port 0 picks any free port, see getPort
+     * @param workers the number of threads events are done on
+     * */
+    EventServer(Restaurant restaurant, InetSocketAddress address, int workers) throws IOException{
+        if (workers < 1){
+            throw new IllegalArgumentException("An event server needs at least one worker thread!");
+        }
+        this.restaurant = restaurant;
+        selector = Selector.open();
+        listener = ServerSocketChannel.open();
+        try {
+            listener.bind(address);
+            listener.configureBlocking(false);
+            listener.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e){
+            listener.close();
+            selector.close();
+            throw e;
+        }
+        for (int i = 0; i < workers; i++){
+            BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+            queues.add(queue);
+            threads.add(new Thread(() -> work(queue), "event-server-worker-" + (i + 1)));
+        }
+        threads.add(new Thread(this::serve, "event-server"));
+        for (Thread thread : threads){
+            thread.start();
+        }
+    }
+
+    // returns the port the server is listening on
+    int getPort(){
+        return listener.socket().getLocalPort();
+    }
+
+    /**
+     * Stops taking connections and reading events, waits for the events already read to be done and their answers to
+     * be written, then closes every connection. A terminal that doesn't read its answers within CLOSE_TIMEOUT_MILLIS
+     * is closed without them. The Restaurant is left open
+     * */
+    @Override
+    public void close(){
+        if (closed){
+            return;
+        }
+        closed = true;
+        selector.wakeup();
+        for (Thread thread : threads){
+            try {
+                thread.join();
+            } catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // the thread that reads and writes every connection
+    private void serve(){
+        try {
+            long deadline = 0; // when the connections are closed whether or not they were answered, once closing
+            while (true){
+                if (closed && deadline == 0){
+                    deadline = System.nanoTime() + CLOSE_TIMEOUT_MILLIS * 1000000;
+                    stopTaking();
+                }
+                if (deadline != 0 && (!hasConnections() || System.nanoTime() > deadline)){
+                    break;
+                }
+                // while closing, wake up now and then to check the time
+                selector.select(deadline == 0 ? 0 : 100);
+                wakeupPending.set(false);
+                for (Iterator<SelectionKey> keys = selector.selectedKeys().iterator(); keys.hasNext(); ){
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (!key.isValid()){
+                            continue;
+                        }
+                        if (key.isAcceptable()){
+                            accept();
+                            continue;
+                        }
+                        Connection connection = (Connection) key.attachment();
+                        if (key.isWritable()){
+                            connection.answer();
+                        }
+                        if (key.isValid() && key.isReadable()){
+                            connection.read();
+                        }
+                    } catch (IOException e){
+                        if (key.attachment() == null){
+                            // a connection couldn't be accepted, the terminal can try again
+                            e.printStackTrace();
+                        } else {
+                            // the terminal went away, its events already read are still done
+                            ((Connection) key.attachment()).close();
+                        }
+                    }
+                }
+                Connection connection;
+                while ((connection = answered.poll()) != null){
+                    try {
+                        connection.answer();
+                    } catch (IOException e){
+                        connection.close();
+                    }
+                }
+            }
+        } catch (IOException e){
+            e.printStackTrace();
+        } finally {
+            for (BlockingQueue<Request> queue : queues){
+                queue.add(END);
+            }
+            for (SelectionKey key : selector.keys()){
+                try {
+                    key.channel().close();
+                } catch (IOException e){
+                    e.printStackTrace();
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException e){
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // stops accepting connections and reading events. Each connection is closed once its events are answered
+    private void stopTaking() throws IOException{
+        listener.keyFor(selector).cancel();
+        listener.close();
+        for (SelectionKey key : selector.keys()){
+            if (key.isValid() && key.attachment() != null){
+                Connection connection = (Connection) key.attachment();
+                connection.closing = true;
+                try {
+                    connection.answer();
+                } catch (IOException e){
+                    connection.close();
+                }
+            }
+        }
+    }
+
+    // true if any connection is still open
+    private boolean hasConnections(){
+        for (SelectionKey key : selector.keys()){
+            if (key.isValid() && key.attachment() != null){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void accept() throws IOException{
+        SocketChannel channel = listener.accept();
+        if (channel == null){
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        Connection connection = new Connection(channel);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+    }
+
+    // hands an event to the worker for its Order
+    private void dispatch(Request request, int orderNumber){
+        queues.get(Math.floorMod(orderNumber, queues.size())).add(request);
+    }
+
+    // a worker thread, doing the events in its queue until it reaches END
+    private void work(BlockingQueue<Request> queue){
+        while (true){
+            Request request;
+            try {
+                request = queue.take();
+            } catch (InterruptedException e){
+                return;
+            }
+            if (request == END){
+                return;
+            }
+            String answer;
+            try {
+                int placed = restaurant.processEvent(request.event, request.newOrderNumber);
+                if (placed != -1){
+                    answer = "ORDER " + placed;
+                } else if (request.newOrderNumber != -1){
+                    // a takeOrder whose Order couldn't be made, the reason is in the event log
+                    answer = error("Order " + request.newOrderNumber + " was turned away");
+                } else {
+                    answer = null;
+                }
+            } catch (RuntimeException e){
+                answer = error(e.getMessage() != null ? e.getMessage() : e.toString());
+            }
+            request.finish(answer);
+            // the I/O thread is woken once for every batch of answers, not for every answer
+            answered.add(request.connection);
+            if (wakeupPending.compareAndSet(false, true)){
+                selector.wakeup();
+            }
+        }
+    }
+
+    private static String error(String message){
+        message = message.replace('\n', ' ').replace('\r', ' ');
+        return "ERR " + (message.length() > MAX_MESSAGE ? message.substring(0, MAX_MESSAGE) : message);
+    }
+
+    // one event read from a connection, and its answer once it is done
+    private static class Request {
+        final Connection connection;
+        EventRecord event;
+        int newOrderNumber = -1; // the number reserved for the Order of a takeOrder
+        boolean dispatched;
+        private volatile boolean done;
+        private String answer; // null for OK, written before done
+
+        Request(Connection connection){
+            this.connection = connection;
+        }
+
+        void finish(String answer){
+            this.answer = answer;
+            done = true;
+        }
+    }
+
+    // a terminal and the events it has sent that haven't been answered yet
+    private class Connection {
+        private final SocketChannel channel;
+        private final ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+        private final ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+        private final ArrayDeque<Request> waiting = new ArrayDeque<>(); // in the order they were read
+        private Request barrier; // an event without an order number, which the events after it wait for
+        private boolean closing; // the terminal closed its side or the server is closing: answer, then close
+        SelectionKey key;
+
+        Connection(SocketChannel channel){
+            this.channel = channel;
+        }
+
+        // reads what the terminal sent and hands out the complete lines, as far as backpressure allows
+        void read() throws IOException{
+            int read = channel.read(in);
+            if (read == -1){
+                closing = true;
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            }
+            handOut();
+            if (!closing && !in.hasRemaining() && barrier == null && waiting.size() < MAX_IN_FLIGHT){
+                // every complete line was handed out, and what is left of the line fills the buffer
+                throw new IOException("Event longer than " + BUFFER_SIZE + " bytes");
+            }
+            answer();
+        }
+
+        // hands out every complete line in the input buffer, until the connection has too many events waiting or
+        // reaches an event the later ones have to wait for
+        private void handOut(){
+            in.flip();
+            while (barrier == null && waiting.size() < MAX_IN_FLIGHT){
+                int end = -1;
+                for (int i = in.position(); i < in.limit(); i++){
+                    if (in.get(i) == '\n'){
+                        end = i;
+                        break;
+                    }
+                }
+                if (end == -1){
+                    break;
+                }
+                String line = new String(in.array(), in.position(), end - in.position(), StandardCharsets.UTF_8);
+                in.position(end + 1);
+                if (!line.isBlank()){
+                    handOut(line);
+                }
+            }
+            in.compact();
+        }
+
+        private void handOut(String line){
+            Request request = new Request(this);
+            waiting.add(request);
+            TextScanner scanner = new TextScanner("connection", line, restaurant.getNames());
+            try {
+                scanner.nextLine();
+                request.event = EventRecord.parse(scanner);
+            } catch (IOException | IllegalArgumentException e){
+                request.finish(error(e.getMessage()));
+                return;
+            }
+            EventRecord event = request.event;
+            if (event.eventType.equals("takeOrder")){
+                request.newOrderNumber = restaurant.reserveOrderNumber();
+                request.dispatched = true;
+                dispatch(request, request.newOrderNumber);
+            } else if (event.orderId != -1){
+                request.dispatched = true;
+                dispatch(request, event.orderId);
+            } else {
+                barrier = request;
+                releaseBarrier();
+            }
+        }
+
+        // hands out the barrier once every event before it is done
+        private void releaseBarrier(){
+            if (barrier != null && !barrier.dispatched && waiting.peekFirst() == barrier){
+                barrier.dispatched = true;
+                dispatch(barrier, 0);
+            }
+        }
+
+        // writes the answers of the events that are done, in order, then reads on if there is room again
+        void answer() throws IOException{
+            if (!channel.isOpen()){
+                return;
+            }
+            int ok = 0;
+            while (!waiting.isEmpty() && waiting.peekFirst().done){
+                Request request = waiting.peekFirst();
+                // room for the OK line so far and this answer
+                int needed = 16 + (request.answer == null ? 0 : request.answer.length() * 3 + 1);
+                if (out.remaining() < needed){
+                    break;
+                }
+                waiting.pollFirst();
+                if (request == barrier){
+                    barrier = null;
+                }
+                if (request.answer == null){
+                    ok++;
+                    continue;
+                }
+                if (ok > 0){
+                    out.put(("OK " + ok + "\n").getBytes(StandardCharsets.UTF_8));
+                    ok = 0;
+                }
+                out.put((request.answer + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            if (ok > 0){
+                out.put(("OK " + ok + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            out.flip();
+            channel.write(out);
+            out.compact();
+
+            releaseBarrier();
+            if (barrier == null && in.position() > 0){
+                // lines held back by backpressure or a barrier
+                handOut();
+                releaseBarrier();
+            }
+            if (closing && waiting.isEmpty() && out.position() == 0){
+                close();
+                return;
+            }
+            // an event that failed to parse while the held back lines were handed out is already answered, and is
+            // written as soon as the channel can take it rather than when the terminal next sends something
+            boolean ready = !waiting.isEmpty() && waiting.peekFirst().done;
+            int ops = out.position() > 0 || ready ? SelectionKey.OP_WRITE : 0;
+            // stop reading while the answers aren't being read or too many events are waiting
+            if (!closing && out.position() < BUFFER_SIZE / 2 && waiting.size() < MAX_IN_FLIGHT){
+                ops |= SelectionKey.OP_READ;
+            }
+            key.interestOps(ops);
+        }
+
+        void close(){
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e){
+                e.printStackTrace();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException{
+        Map<String, String> options = EventLogGenerator.parseOptions(args);
+        int port = Integer.parseInt(options.getOrDefault("port", String.valueOf(DEFAULT_PORT)));
+        int workers = Integer.parseInt(options.getOrDefault("threads", "4"));
+        String dataFolder = options.getOrDefault("data", Restaurant.DATA_FOLDER);
+
+        List<Server> servers = new ArrayList<>();
+        for (int i = 1; i <= Integer.parseInt(options.getOrDefault("servers", "3")); i++){
+            servers.add(new Server("server" + i));
+        }
+        List<Cook> cooks = new ArrayList<>();
+        for (int i = 1; i <= Integer.parseInt(options.getOrDefault("cooks", "3")); i++){
+            cooks.add(new Cook("cook" + i));
+        }
+        Restaurant restaurant = new Restaurant(dataFolder, servers, cooks);
+        restaurant.exportMetrics();
+        EventServer server = new EventServer(restaurant, new InetSocketAddress(port), workers);
+        // runs until the program is stopped, then finishes the events already read and saves the inventory
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            restaurant.close();
+        }, "event-server-shutdown"));
+        System.out.println("Taking events on port " + server.getPort());
+    }
+}
@@ -0,0 +1,187 @@
+/*
+Represents a food.
+The foods on the menu are shared by every Order, so a Food never changes once it is made.
+ */
+package restaurant;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class Food{
+    //The recipe is kept as two arrays: the id of each ingredient and the amount of it needed
+    private final IngredientIndex index;
+    private final int[] ingredientIds;
+    private final int[] amounts;
+    private final float price;
+    private final long priceCents; // the price in whole cents, so adding prices up never rounds
+    private final String name;
+
+    /**
+     * Creates a item on the menu with a name, price, and ingredients
+     * @param name The name of the dish
+     * @param price The base price of the dish
+     * @param ingredients Ingredients used to prepare this dish
+     */
+    Food(String name, float price, Map<String, Integer> ingredients){
+        this(name, price, ingredients, new IngredientIndex());
+    }
+
+    /**
+     * Creates a item on the menu whose ingredients are numbered by the given index
+     * @param name The name of the dish
+     * @param price The base price of the dish
+     * @param ingredients Ingredients used to prepare this dish
+     * @param index The index shared by every food on the menu
+     */
+    Food(String name, float price, Map<String, Integer> ingredients, IngredientIndex index){
+        this.name = name;
+        this.price = price;
+        this.priceCents = Math.round(price * 100.0);
+        this.index = index;
+        this.ingredientIds = new int[ingredients.size()];
+        this.amounts = new int[ingredients.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : ingredients.entrySet()){
+            ingredientIds[i] = index.idOf(entry.getKey());
+            amounts[i] = entry.getValue();
+            i++;
+        }
+    }
+
+    /**
+     * Creates a item on the menu from a recipe that is already numbered by the given index
+     * @param name The name of the dish
+     * @param price The base price of the dish
+     * @param ingredientIds The id of each ingredient in the index
+     * @param amounts The amount of each ingredient, in the same order
+     * @param index The index shared by every food on the menu
+     */
+    Food(String name, float price, int[] ingredientIds, int[] amounts, IngredientIndex index){
+        this.name = name;
+        this.price = price;
+        this.priceCents = Math.round(price * 100.0);
+        this.index = index;
+        this.ingredientIds = ingredientIds;
+        this.amounts = amounts;
+    }
+
+    /**
+     * Returns a copy of this food with more of an ingredient, which is added to the recipe if it isn't in it yet.
+     * The menu's Food is shared by every Order and never changes
+     * @param ingredientName the ingredient to add
+     * @param ingredientQuantity how much more of it
+     * @throws IllegalArgumentException if no food on the menu or stock in the inventory has that ingredient
+     */
+    Food withIngredient(String ingredientName, int ingredientQuantity){
+        int id = idOf(ingredientName);
+        int at = find(id);
+        int[] newIds = ingredientIds;
+        int[] newAmounts = amounts.clone();
+        if (at != -1){
+            newAmounts[at] += ingredientQuantity;
+        }else{
+            newIds = Arrays.copyOf(ingredientIds, ingredientIds.length + 1);
+            newAmounts = Arrays.copyOf(amounts, amounts.length + 1);
+            newIds[newIds.length - 1] = id;
+            newAmounts[newAmounts.length - 1] = ingredientQuantity;
+        }
+        return new Food(name, price, newIds, newAmounts, index);
+    }
+
+    /**
+     * Returns a copy of this food with less of an ingredient, which is left out of the recipe if none is left
+     * @param ingredientName the ingredient to take out
+     * @param ingredientQuantity how much less of it
+     * @throws IllegalArgumentException if no food on the menu or stock in the inventory has that ingredient
+     */
+    Food withoutIngredient(String ingredientName, int ingredientQuantity){
+        int at = find(idOf(ingredientName));
+        if (at == -1){
+            return this;
+        }
+        if (ingredientQuantity < amounts[at]){
+            int[] newAmounts = amounts.clone();
+            newAmounts[at] -= ingredientQuantity;
+            return new Food(name, price, ingredientIds, newAmounts, index);
+        }
+        int last = ingredientIds.length - 1;
+        int[] newIds = Arrays.copyOf(ingredientIds, last);
+        int[] newAmounts = Arrays.copyOf(amounts, last);
+        if (at != last){
+            newIds[at] = ingredientIds[last];
+            newAmounts[at] = amounts[last];
+        }
+        return new Food(name, price, newIds, newAmounts, index);
+    }
+
+    // Returns a copy of this food at a different price
+    Food withPrice(float price){
+        return new Food(name, price, ingredientIds, amounts, index);
+    }
+
+    public float getPrice() { return price; }
+
+    public long getPriceCents() { return priceCents; }
+
+    /**
+     * This constructor is used STRICTLY for making a copy of the given food
+     * @param another The food instance that must be copied
+     */
+    Food(Food another){
+        this.name = another.name;
+        this.price = another.price;
+        this.priceCents = another.priceCents;
+        this.index = another.index;
+        this.ingredientIds = another.ingredientIds.clone();
+        this.amounts = another.amounts.clone();
+    }
+
+    // Returns a new Map with the name and amount of each ingredient in this food
+    public Map<String, Integer> getIngredients(){
+        Map<String, Integer> ingredients = new LinkedHashMap<>();
+        for (int i = 0; i < ingredientIds.length; i++){
+            ingredients.put(index.nameOf(ingredientIds[i]), amounts[i]);
+        }
+        return ingredients;
+    }
+
+    // the index this food's ingredient ids come from
+    IngredientIndex getIndex(){
+        return index;
+    }
+
+    // the ids of this food's ingredients, in step with getAmounts. Must not be changed
+    int[] getIngredientIds(){
+        return ingredientIds;
+    }
+
+    // the amount of each of this food's ingredients, in step with getIngredientIds. Must not be changed
+    int[] getAmounts(){
+        return amounts;
+    }
+
+    // returns the id of an ingredient the index already knows, without giving a new name an id
+    private int idOf(String ingredientName){
+        int id = index.find(ingredientName);
+        if (id == -1){
+            throw new IllegalArgumentException(ingredientName + " is not an ingredient!");
+        }
+        return id;
+    }
+
+    // returns where the ingredient with the given id is in the arrays, or -1 if this food doesn't use it
+    private int find(int id){
+        for (int i = 0; i < ingredientIds.length; i++){
+            if (ingredientIds[i] == id){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,73 @@
+package restaurant;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The IngredientIndex class. Gives every ingredient name a small whole number, its id, starting at 0. Recipes are
+ * stored as arrays of ids and amounts, so adding up the ingredients of an Order is done on plain arrays indexed by id
+ * instead of on maps keyed by name
+ * */
+class IngredientIndex {
+    private Map<String, Integer> ids;
+    private List<String> names;
+
+    // a zeroed array per thread used to add up recipes, so each sum does not allocate one
+    private final ThreadLocal<int[]> scratch = ThreadLocal.withInitial(() -> new int[0]);
+
+    IngredientIndex(){
+        ids = new HashMap<>();
+        names = new ArrayList<>();
+    }
+
+    /**
+     * Returns the id of the given ingredient, giving it the next id if it doesn't have one yet
+     * @param name the name of the ingredient
+     * */
+    synchronized int idOf(String name){
+        Integer id = ids.get(name);
+        if (id == null){
+            id = names.size();
+            ids.put(name, id);
+            names.add(name);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the id of the given ingredient without giving it one, so a name that only came from an Order is never
+     * added to the index
+     * @param name the name of the ingredient
+     * @return its id, or -1 if it doesn't have one
+     * */
+    synchronized int find(String name){
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    // returns the name of the ingredient with the given id
+    synchronized String nameOf(int id){
+        return names.get(id);
+    }
+
+    // returns the number of ingredients with an id
+    synchronized int size(){
+        return names.size();
+    }
+
+    /**
+     * Returns this thread's array for adding up recipes. It is at least as long as there are ids and every entry is 0;
+     * whoever uses it must set the entries they changed back to 0
+     * */
+    int[] scratch(){
+        int[] totals = scratch.get();
+        int size = size();
+        if (totals.length < size){
+            totals = new int[Math.max(size, totals.length * 2)];
+            scratch.set(totals);
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,184 @@
+package restaurant;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Map;
+
+/**
+ * The InventoryJournal class.
+ * An append-only record of every change made to the inventory. Changes are buffered in memory and written to the
+ * journal file in groups, so using ingredients no longer rewrites inventory.txt. Each entry is numbered, and
+ * inventory.txt remembers the number of the last entry it already contains, so the inventory can always be rebuilt
+ * by loading inventory.txt and replaying the newer entries of the journal. Once the journal is made durable, each
+ * group of entries is also forced to disk as it is written, so one fsync covers the whole group
+ *
+ * Each line of the journal is in the format sequence | ingredient | change
+ * */
+class InventoryJournal {
+    private final String journalFile;
+    private final int batchSize;
+    private final LatencyHistogram flushTimes; // how long each write to the journal file takes
+
+    private StringBuilder buffer;
+    private int buffered;
+    private long lastSequence; // number of the last entry recorded
+    private long lastFlushed; // number of the last entry written to the journal file
+    private boolean durable; // true if every write is forced to disk
+
+    /**
+     * Creates a journal that appends to the given file
+     * @param journalFile the file the journal is written to
+     * @param batchSize the number of entries buffered before they are written to the file
+     * @param lastSequence the number of the last entry already in the journal or in inventory.txt
+     * */
+    InventoryJournal(String journalFile, int batchSize, long lastSequence){
+        this(journalFile, batchSize, lastSequence, new LatencyHistogram());
+    }
+
+    /**
+     * Creates a journal as above that records how long each write to the file takes
+     * @param flushTimes the histogram the write times are recorded in
+     * */
+    InventoryJournal(String journalFile, int batchSize, long lastSequence, LatencyHistogram flushTimes){
+        this.journalFile = journalFile;
+        this.flushTimes = flushTimes;
+        this.batchSize = batchSize;
+        this.lastSequence = lastSequence;
+        this.lastFlushed = lastSequence;
+        this.buffer = new StringBuilder();
+    }
+
+    /**
+     * Records a change to the stock of an ingredient. The entry is written once the batch is full or the journal is
+     * flushed
+     * @param ingredient the ingredient that changed
+     * @param change the amount added to (or taken from, if negative) the stock
+     * */
+    synchronized void record(String ingredient, int change){
+        lastSequence++;
+        buffer.append(lastSequence).append(" | ").append(ingredient).append(" | ").append(change)
+                .append(System.lineSeparator());
+        buffered++;
+        if (buffered >= batchSize){
+            flush();
+        }
+    }
+
+    // makes every later write wait until the entries are on disk, not just handed to the operating system
+    synchronized void setDurable(boolean durable){
+        this.durable = durable;
+    }
+
+    /**
+     * Writes every buffered entry to the journal file in a single append, forcing it to disk if the journal is durable
+     * */
+    synchronized void flush(){
+        if (buffered == 0){
+            return;
+        }
+        long start = System.nanoTime();
+        try (FileOutputStream out = new FileOutputStream(journalFile, true)){
+            out.write(buffer.toString().getBytes(StandardCharsets.UTF_8));
+            if (durable){
+                out.getChannel().force(false);
+            }
+        } catch (IOException e){
+            e.printStackTrace();
+            return;
+        }
+        flushTimes.record(System.nanoTime() - start);
+        buffer.setLength(0);
+        buffered = 0;
+        lastFlushed = lastSequence;
+    }
+
+    // returns the number of the last entry recorded
+    synchronized long getLastSequence(){
+        return lastSequence;
+    }
+
+    /**
+     * Removes every entry up to and including the given number from the journal file. Called once inventory.txt has
+     * been rewritten to contain those entries. The shortened journal is written to a new file that replaces the old
+     * one only once it is on disk, so a crash leaves either the old journal or the new one, never an empty one
+     * @param sequence the number of the last entry now contained in inventory.txt
+     * */
+    synchronized void truncateThrough(long sequence){
+        flush();
+        StringBuilder kept = new StringBuilder();
+        if (lastFlushed > sequence){
+            // entries were written while inventory.txt was being rewritten, keep them
+            try (BufferedReader reader = new BufferedReader(new FileReader(journalFile))){
+                String line = reader.readLine();
+                while (line != null){
+                    String[] split = line.split("\\s\\|\\s");
+                    try {
+                        if (Long.parseLong(split[0]) > sequence){
+                            kept.append(line).append(System.lineSeparator());
+                        }
+                    } catch (NumberFormatException e){
+                        // a partially written last line, as replay ignores it
+                        break;
+                    }
+                    line = reader.readLine();
+                }
+            } catch (IOException e){
+                e.printStackTrace();
+                return;
+            }
+        }
+        Path temp = Paths.get(journalFile + ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)){
+                ByteBuffer bytes = ByteBuffer.wrap(kept.toString().getBytes(StandardCharsets.UTF_8));
+                while (bytes.hasRemaining()){
+                    out.write(bytes);
+                }
+                out.force(true);
+            }
+            Files.move(temp, Paths.get(journalFile), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e){
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Applies every entry in the journal file numbered after the given sequence to the given inventory. A partially
+     * written last line, as left by a crash, is ignored
+     * @param journalFile the journal file to replay
+     * @param inventory the inventory loaded from inventory.txt
+     * @param after the number of the last entry already contained in inventory.txt
+     * @return the number of the last entry in the journal, or after if there were no newer entries
+     * */
+    static long replay(String journalFile, Map<String, Integer> inventory, long after) throws IOException{
+        long last = after;
+        if (!(new File(journalFile).exists())){
+            return last;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(journalFile))){
+            String line = reader.readLine();
+            while (line != null){
+                String[] split = line.split("\\s\\|\\s");
+                long sequence;
+                int change;
+                try {
+                    sequence = Long.parseLong(split[0]);
+                    change = Integer.parseInt(split[2]);
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e){
+                    break;
+                }
+                if (sequence > last){
+                    inventory.merge(split[1], change, Integer::sum);
+                    last = sequence;
+                }
+                line = reader.readLine();
+            }
+        }
+        return last;
+    }
+}
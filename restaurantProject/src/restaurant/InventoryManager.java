@@ -0,0 +1,658 @@
+package restaurant;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The InventoryManager class.
+ * Represents the inventory of a Restaurant and manages the stock of ingredients for cooking
+ *
+ * In write-behind mode, changes to the stock are appended to inventory.journal instead of rewriting inventory.txt
+ * every time. The journal is written in batches and folded back into inventory.txt in the background
+ *
+ * Many cooks can take stock at once. Each ingredient belongs to one of a fixed number of locks, and taking the
+ * ingredients for an Order only locks the ones it needs, always in the same order so two cooks never wait on each
+ * other. Ingredients are first reserved, all or nothing, and then committed or released
+ * */
+class InventoryManager {
+    private Map<String, Integer> inventory; // the stock on hand
+    private Map<String, Integer> reserved; // the part of the stock on hand that has been reserved but not used yet
+    private Map<String, Integer> minimums;
+    private ReorderEngine reorders; // writes purchase orders for ingredients below their minimum
+    private volatile MenuAvailability availability; // the portions of each dish that can be made, null unless tracked
+    private InventoryJournal journal; // null unless in write-behind mode
+    private ScheduledExecutorService background;
+    private TextScanner.NameTable names = new TextScanner.NameTable();
+    private final RestaurantMetrics metrics;
+
+    private static final int LOCK_COUNT = 64;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_COUNT]; // guard changes to inventory and reserved
+    private final Object reorderLock = new Object(); // guards minimums.txt
+
+    // the files of the data folder this inventory belongs to
+    private final String inventoryFile;
+    private final String minimumFile;
+    private final String reorderFile;
+    private final String journalFile;
+
+    // inventory.txt starts with this line when it was written by a compaction, followed by the last journal entry
+    private static final String JOURNAL_HEADER = "# journal";
+    private static final int JOURNAL_BATCH_SIZE = 64;
+    private static final long FLUSH_INTERVAL_MILLIS = 200;
+    private static final long COMPACT_INTERVAL_MILLIS = 5000;
+    private static final long PURCHASE_ORDER_INTERVAL_MILLIS = 1000;
+
+    private long compactedSequence; // the last journal entry contained in inventory.txt
+    private volatile boolean durable; // true if the journal and inventory.txt are forced to disk as they are written
+    private volatile boolean automaticPurchaseOrders = true; // false if purchase orders are only written when asked
+
+    /**
+     * Initializes the inventory and minimums maps using their respective files. If the files are not present, they are
+     * auto-generated with pre-determined values. Also creates the requests.txt file which holds all the items which
+     * a manager must order from the supplier
+     */
+    InventoryManager (){
+        this(true);
+    }
+
+    /**
+     * Initializes the inventory as above
+     * @param writeBehind if true, changes are journaled and compacted into inventory.txt in the background. Otherwise
+     *                    inventory.txt is rewritten after every change
+     */
+    InventoryManager (boolean writeBehind){
+        this(writeBehind, new RestaurantMetrics());
+    }
+
+    /**
+     * Initializes the inventory as above
+     * @param writeBehind as above
+     * @param metrics where stock-outs and the time taken to write each file are recorded
+     */
+    InventoryManager (boolean writeBehind, RestaurantMetrics metrics){
+        this(writeBehind, metrics, null);
+    }
+
+    /**
+     * Initializes the inventory as above, taking the stock and minimums from a snapshot instead of parsing
+     * inventory.txt and minimums.txt
+     * @param writeBehind as above
+     * @param metrics as above
+     * @param snapshot the snapshot of the data folder, or null to parse the text files
+     */
+    InventoryManager (boolean writeBehind, RestaurantMetrics metrics, DataSnapshot snapshot){
+        this(writeBehind, metrics, snapshot, Restaurant.DATA_FOLDER);
+    }
+
+    /**
+     * Initializes the inventory as above from the files of the given data folder, so several Restaurants can each
+     * keep their own inventory
+     * @param writeBehind as above
+     * @param metrics as above
+     * @param snapshot the snapshot of that data folder, or null to parse the text files
+     * @param folder the data folder holding inventory.txt, minimums.txt, requests.txt and inventory.journal
+     */
+    InventoryManager (boolean writeBehind, RestaurantMetrics metrics, DataSnapshot snapshot, String folder){
+        this.metrics = metrics;
+        this.inventoryFile = folder + "/inventory.txt";
+        this.minimumFile = folder + "/minimums.txt";
+        this.reorderFile = folder + "/requests.txt";
+        this.journalFile = folder + "/inventory.journal";
+        for (int i = 0; i < LOCK_COUNT; i++){
+            locks[i] = new ReentrantLock();
+        }
+        try{
+            inventory = new ConcurrentHashMap<>();
+            reserved = new ConcurrentHashMap<>();
+
+            // Creates the inventory file if it doesn't exist
+            if (!(new File(inventoryFile).exists())) {
+                new PrintWriter(new BufferedWriter(new FileWriter(inventoryFile)));}
+            else if (snapshot != null){
+                inventory.putAll(snapshot.getInventory());
+                compactedSequence = snapshot.getJournalSequence();
+            }
+            else{
+                // Adds items from the inventory.txt file to the inventory Map
+                parseFile(inventoryFile);
+            }
+
+            if (writeBehind) {
+                // brings the inventory up to date with any changes that were not compacted before the last shutdown
+                long last = InventoryJournal.replay(journalFile, inventory, compactedSequence);
+                journal = new InventoryJournal(journalFile, JOURNAL_BATCH_SIZE, last, metrics.journalFlushes);
+            }
+
+            minimums = new ConcurrentHashMap<>();
+
+            //Creates the minimums file if it doesn't exist
+            if (!(new File(minimumFile).exists())) {
+                new PrintWriter(new BufferedWriter(new FileWriter(minimumFile)));}
+            else if (snapshot != null){
+                minimums.putAll(snapshot.getMinimums());
+            }
+            else{
+                // Adds items from the minimums.txt file to the minimums Map
+                parseFile(minimumFile);
+            }
+
+            // creates the file for reordering
+            reorders = new ReorderEngine(reorderFile, inventory, minimums, metrics.requestWrites);
+
+            // detects and fills in any missing entries in inventory and minimums
+            // this ensures the two sets and files have the same entries
+            // also reorders any insufficient stock in the inventory
+            checkIntegrity(minimums.keySet());
+
+            if (writeBehind) {
+                startBackground();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * reads the inventory or minimum file and creates the associated map attribute in the instance
+     * @param fileName the file to be parsed. must either be the inventoryFile or minimumFile
+     * */
+    private void parseFile(String fileName) throws IOException{
+        if (fileName.equals(inventoryFile)){
+            compactedSequence = readQuantities(fileName, names, inventory);
+        } else if (fileName.equals(minimumFile)){
+            readQuantities(fileName, names, minimums);
+        } else {
+            throw new IllegalArgumentException("That's not a valid file!");
+        }
+    }
+
+    /**
+     * reads a file in the format ingredient | quantity, like inventory.txt or minimums.txt
+     * @param fileName the file to read
+     * @param names the table the ingredient names are looked up in
+     * @param target the map each ingredient and quantity is put in
+     * @return the last journal entry the file contains, or 0 if it wasn't written by a compaction
+     * */
+    static long readQuantities(String fileName, TextScanner.NameTable names, Map<String, Integer> target)
+            throws IOException{
+        long sequence = 0;
+        try (TextScanner scanner = new TextScanner(fileName, names)) {
+            TextScanner.Field line = scanner.new Field();
+            TextScanner.Field name = scanner.new Field();
+            TextScanner.Field amount = scanner.new Field();
+            while (scanner.nextLine()){
+                scanner.line(line);
+                if (!line.next((byte) '|', name) || !line.next((byte) '|', amount) || line.next((byte) '|', amount)){
+                    throw scanner.fail("expected \"ingredient | quantity\"");
+                }
+                if (name.is(JOURNAL_HEADER)){
+                    sequence = amount.toLong("a journal entry number");
+                } else {
+                    target.put(name.toName(), amount.toInt("a quantity"));
+                }
+            }
+        }
+        return sequence;
+    }
+
+    /**
+     * Analyses for missing entries in the minimums Map or the minimums.txt file and generates default minimums for each
+     * By default, the default minimum for all ingredients is 10 units. This can be adjusted afterwards in the
+     * minimums.txt file
+     * */
+    private void fillMinimums(){
+        // the file is only opened when something is missing, so a complete minimums.txt is left untouched
+        List<String> missing = new ArrayList<>();
+        for (String key : inventory.keySet()){
+            if (!minimums.containsKey(key)){
+                missing.add(key);
+            }
+        }
+        if (missing.isEmpty()){
+            return;
+        }
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(minimumFile, true)))) {
+            for (String key : missing){
+                out.println(key + " | " + 10);
+                minimums.put(key, 10);
+            }
+        }catch(IOException e){
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * checks if each ingredient in a given set of ingredients is recorded in the inventory. if it is not, it is added
+     * to the inventory with a stock-value of 0. any insufficient ingredients are then reordered. entries missing in the
+     * minimums file are also added
+     * @param ingredients the set of ingredients to check
+     * */
+    public void checkIntegrity(Set<String> ingredients){
+        for (String key : ingredients){
+            ReentrantLock lock = lockFor(key);
+            lock.lock();
+            try {
+                if (!inventory.containsKey(key)){
+                    inventory.put(key, 0);
+                    if (journal != null){
+                        journal.record(key, 0);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        synchronized (reorderLock){
+            fillMinimums();
+        }
+        // only ingredients just added can be newly short, but this is also how the inventory is first checked
+        reorders.checkAll(inventory.keySet());
+        reorders.flush();
+    }
+
+    /**
+     * Subtracts <inventory> hashmap with a hashmap of the ingredients used.
+     * if any items in the inventory drop below the minimum threshold for its stock, they are reordered in the next
+     * purchase order written to requests.txt
+     * changes to the inventory are also reflected in inventory.txt
+     * if there is not enough of any ingredient, nothing is subtracted
+     * @param used a HashMap that contains ingredients to be subtracted
+     */
+    public void useIngredients(Map<String, Integer> used){
+        reserve(used).commit();
+    }
+
+    /**
+     * Sets aside the given ingredients so no one else can use them. Either every ingredient is reserved or, if there
+     * is not enough of one of them, none are
+     * @param needed the ingredients to reserve and the amount of each
+     * @return the Reservation, to be committed once the ingredients are used or released if they are not
+     * */
+    public Reservation reserve(Map<String, Integer> needed){
+        for (Map.Entry<String, Integer> entry : needed.entrySet()){
+            if (!inventory.containsKey(entry.getKey())){
+                throw new IllegalArgumentException(entry.getKey() + " is not a valid ingredient!");
+            }
+            // setting aside a negative amount would add to the stock
+            if (entry.getValue() < 1){
+                throw new IllegalArgumentException("Can't set aside " + entry.getValue() + " " + entry.getKey() + "!");
+            }
+        }
+        Reservation reservation = new Reservation(needed);
+        reservation.lock();
+        try {
+            for (Map.Entry<String, Integer> entry : needed.entrySet()){
+                String key = entry.getKey();
+                if (inventory.get(key) - reserved.getOrDefault(key, 0) < entry.getValue()){
+                    metrics.stockOut();
+                    throw new IllegalArgumentException("We don't have enough " + key + " for that order!");
+                }
+            }
+            for (Map.Entry<String, Integer> entry : needed.entrySet()){
+                reserved.merge(entry.getKey(), entry.getValue(), Integer::sum);
+            }
+            MenuAvailability view = availability;
+            if (view != null){
+                view.changed(needed, -1);
+            }
+        } finally {
+            reservation.unlock();
+        }
+        return reservation;
+    }
+
+    // returns the stock of the given ingredient that is neither used nor reserved
+    public int getAvailable(String ingredient){
+        return inventory.getOrDefault(ingredient, 0) - reserved.getOrDefault(ingredient, 0);
+    }
+
+    // returns the name of every ingredient in the inventory, whether or not any is in stock
+    Set<String> getIngredientNames(){
+        return new HashSet<>(inventory.keySet());
+    }
+
+    /**
+     * Keeps the given view of the menu up to date with every change to the stock that isn't reserved, from its
+     * current value on. Using or reserving ingredients and receiving them each update only the dishes affected
+     * @param view the view of the menu, loaded here
+     * */
+    void trackAvailability(MenuAvailability view){
+        // nothing may change while the view is loaded, or the change would be missed or counted twice
+        lockAll();
+        try {
+            view.load(this::getAvailable);
+            availability = view;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Incorporates a new shipment of ingredients into the inventory. Only the ingredients in the shipment are checked
+     * again: those back at their minimum are no longer reordered, and those still short are ordered again if the
+     * shipment was smaller than what was on order. also updates inventory.txt
+     * @param shipment A map of each ingredient name and the amount received
+     * */
+    public void receiveShipment(Map<String, Integer> shipment){
+        for (String key : shipment.keySet()){
+            addIngredient(key, shipment.get(key));
+            reorders.received(key, shipment.get(key));
+        }
+        if (journal == null){
+            reorders.flush();
+            updateInventory();
+        }
+    }
+
+    /**
+     * Adds a given amount of a single ingredient into the inventory
+     * Can be used to individually add each item of a shipment into the inventory
+     * @param food the ingredient being added
+     * @param amount the amount of the ingredient being added
+     * */
+    public void addIngredient(String food, Integer amount){
+        ReentrantLock lock = lockFor(food);
+        lock.lock();
+        try {
+            inventory.merge(food, amount, Integer::sum);
+            if (journal != null){
+                journal.record(food, amount);
+            }
+            MenuAvailability view = availability;
+            if (view != null){
+                view.changed(food, amount);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * updates the inventory.txt file to match the inventory map
+     * */
+    private synchronized void updateInventory(){
+        long start = System.nanoTime();
+        try{
+            FileWriter clear = new FileWriter(inventoryFile,false);
+            clear.write("");
+        } catch(IOException e){
+            e.printStackTrace();
+        }
+        try(PrintWriter fresh = new PrintWriter(new BufferedWriter(new FileWriter(inventoryFile, true)))){
+            for (String key : inventory.keySet()){
+                fresh.println(key + " | " + inventory.get(key));
+            }
+        } catch(IOException e){
+            e.printStackTrace();
+        }
+        metrics.inventoryWrites.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Writes the current inventory to inventory.txt, along with the number of the last journal entry it contains, and
+     * then removes those entries from the journal. inventory.txt is replaced in one step, so a crash at any point
+     * leaves either the old or the new file next to a journal that brings it up to date
+     * */
+    void compact(){
+        long start = System.nanoTime();
+        Map<String, Integer> copy;
+        long sequence;
+        // every lock is taken so the copy matches the journal exactly
+        lockAll();
+        try {
+            journal.flush();
+            copy = new LinkedHashMap<>(inventory);
+            sequence = journal.getLastSequence();
+        } finally {
+            unlockAll();
+        }
+        if (sequence == compactedSequence){
+            return;
+        }
+        Path target = Paths.get(inventoryFile);
+        Path temp = Paths.get(inventoryFile + ".tmp");
+        try (PrintWriter fresh = new PrintWriter(Files.newBufferedWriter(temp))){
+            fresh.println(JOURNAL_HEADER + " | " + sequence);
+            for (String key : copy.keySet()){
+                fresh.println(key + " | " + copy.get(key));
+            }
+        } catch(IOException e){
+            e.printStackTrace();
+            return;
+        }
+        try {
+            if (durable){
+                // the new file must be on disk before it replaces the old one
+                try (FileChannel written = FileChannel.open(temp, StandardOpenOption.WRITE)){
+                    written.force(true);
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch(IOException e){
+            e.printStackTrace();
+            return;
+        }
+        compactedSequence = sequence;
+        journal.truncateThrough(sequence);
+        metrics.compactions.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Stops or restarts writing purchase orders in the background every PURCHASE_ORDER_INTERVAL_MILLIS, for when
+     * something else decides when they are written, such as a simulation running on its own clock
+     * @param automatic false to only write purchase orders through writePurchaseOrder
+     * */
+    void setAutomaticPurchaseOrders(boolean automatic){
+        automaticPurchaseOrders = automatic;
+    }
+
+    /**
+     * Writes a purchase order for every short ingredient that isn't fully on order yet
+     * @return the amount ordered of each ingredient, empty if nothing needed ordering
+     * */
+    Map<String, Integer> writePurchaseOrder(){
+        return reorders.flush();
+    }
+
+    // returns every amount requested from the supplier that hasn't arrived yet
+    Map<String, Integer> getOnOrder(){
+        return reorders.getOnOrder();
+    }
+
+    /**
+     * Makes every change to the stock wait for the disk once it is written to the journal, in groups as before, and
+     * forces inventory.txt to disk before it replaces the old one. Only has an effect in write-behind mode
+     * @param durable true to force writes to disk
+     * */
+    void setDurable(boolean durable){
+        this.durable = durable;
+        if (journal != null){
+            journal.setDurable(durable);
+        }
+    }
+
+    /**
+     * Writes every change to the stock made so far to the journal, forced to disk if the inventory is durable. Threads
+     * that call this at the same time share one write. Does nothing unless in write-behind mode
+     * */
+    void flushJournal(){
+        if (journal != null){
+            journal.flush();
+        }
+    }
+
+    /**
+     * Writes any waiting purchase order and any journaled changes, compacts them into inventory.txt and stops the
+     * background thread
+     * */
+    void close(){
+        reorders.flush();
+        if (journal == null){
+            return;
+        }
+        background.shutdown();
+        try {
+            background.awaitTermination(COMPACT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        compact();
+    }
+
+    // starts the thread that flushes the journal, compacts it into inventory.txt and writes purchase orders
+    private void startBackground(){
+        background = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "inventory-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        background.scheduleWithFixedDelay(journal::flush, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+        background.scheduleWithFixedDelay(this::compact, COMPACT_INTERVAL_MILLIS, COMPACT_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+        background.scheduleWithFixedDelay(() -> {
+            if (automaticPurchaseOrders){
+                reorders.flush();
+            }
+        }, PURCHASE_ORDER_INTERVAL_MILLIS, PURCHASE_ORDER_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    // returns the lock that guards the given ingredient
+    private ReentrantLock lockFor(String ingredient){
+        return locks[lockIndex(ingredient)];
+    }
+
+    private static int lockIndex(String ingredient){
+        int hash = ingredient.hashCode();
+        return (hash ^ (hash >>> 16)) & (LOCK_COUNT - 1);
+    }
+
+    private void lockAll(){
+        for (ReentrantLock lock : locks){
+            lock.lock();
+        }
+    }
+
+    private void unlockAll(){
+        for (int i = LOCK_COUNT - 1; i >= 0; i--){
+            locks[i].unlock();
+        }
+    }
+
+    /**
+     * The Reservation class. Ingredients set aside for one use, such as cooking one Order. The stock stays in the
+     * inventory until the Reservation is committed, and is freed for others if it is released instead
+     * */
+    class Reservation {
+        private final Map<String, Integer> amounts;
+        private final int[] lockIndexes; // the locks for the ingredients, in the order they must be taken
+        private boolean done;
+
+        private Reservation(Map<String, Integer> amounts){
+            this.amounts = new HashMap<>(amounts);
+            SortedSet<Integer> indexes = new TreeSet<>();
+            for (String key : amounts.keySet()){
+                indexes.add(lockIndex(key));
+            }
+            lockIndexes = new int[indexes.size()];
+            int i = 0;
+            for (int index : indexes){
+                lockIndexes[i++] = index;
+            }
+        }
+
+        /**
+         * Uses the reserved ingredients, taking them out of the inventory and reordering any that run low
+         * */
+        void commit(){
+            lock();
+            try {
+                finish();
+                for (Map.Entry<String, Integer> entry : amounts.entrySet()){
+                    String key = entry.getKey();
+                    int before = inventory.merge(key, -entry.getValue(), Integer::sum) + entry.getValue();
+                    int minimum = minimums.getOrDefault(key, 0);
+                    if (before >= minimum && before - entry.getValue() < minimum){
+                        // the stock just dropped below the minimum
+                        reorders.check(key);
+                    }
+                    reserved.merge(key, -entry.getValue(), Integer::sum);
+                    if (journal != null){
+                        journal.record(key, -entry.getValue());
+                    }
+                }
+            } finally {
+                unlock();
+            }
+            if (journal == null){
+                reorders.flush();
+                updateInventory();
+            }
+        }
+
+        /**
+         * Gives the reserved ingredients back without using them
+         * */
+        void release(){
+            lock();
+            try {
+                finish();
+                for (Map.Entry<String, Integer> entry : amounts.entrySet()){
+                    reserved.merge(entry.getKey(), -entry.getValue(), Integer::sum);
+                }
+                MenuAvailability view = availability;
+                if (view != null){
+                    view.changed(amounts, 1);
+                }
+            } finally {
+                unlock();
+            }
+        }
+
+        // returns the ingredients held by this Reservation
+        Map<String, Integer> getAmounts(){
+            return Collections.unmodifiableMap(amounts);
+        }
+
+        private void finish(){
+            if (done){
+                throw new IllegalStateException("This reservation has already been committed or released!");
+            }
+            done = true;
+        }
+
+        private void lock(){
+            for (int index : lockIndexes){
+                locks[index].lock();
+            }
+        }
+
+        private void unlock(){
+            for (int i = lockIndexes.length - 1; i >= 0; i--){
+                locks[lockIndexes[i]].unlock();
+            }
+        }
+    }
+
+    /**
+     * Generates a list of all ingredients and the amount in stock of each for a manager to see
+     * */
+    @Override
+    public String toString(){
+        StringBuilder full = new StringBuilder();
+        for (String key : inventory.keySet()){
+            full.append(key);
+            full.append(" x ");
+            full.append(inventory.get(key));
+            full.append(System.lineSeparator());
+        }
+        return full.toString();
+    }
+}
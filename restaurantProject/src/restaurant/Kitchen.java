@@ -0,0 +1,155 @@
+package restaurant;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class Kitchen {
+    private OrderManager orderManager;
+    InventoryManager inventoryManager;
+    private List<Cook> cooks;
+    private CookScheduler scheduler; // decides which Cook makes each pending Order
+
+    //Constructor will take the orderManager from restaurant
+
+    /**
+     * The constructor will take an orderManager from the restaurant and initialize new ArrayList of Cook and
+     * inventoryManager class
+     *
+     * @param orderManager The general orderManager used by the restaurant
+     */
+    Kitchen(OrderManager orderManager) {
+        this(orderManager, new ArrayList<>());
+    }
+
+    Kitchen(OrderManager orderManager, List<Cook> cooks) {
+        this(orderManager, cooks, null);
+    }
+
+    /**
+     * Creates a Kitchen whose inventory is loaded from the given snapshot
+     *
+     * @param orderManager The general orderManager used by the restaurant
+     * @param cooks the Cooks of the Kitchen
+     * @param snapshot the snapshot of the data folder, or null to parse the text files
+     */
+    Kitchen(OrderManager orderManager, List<Cook> cooks, DataSnapshot snapshot) {
+        this(orderManager, cooks, snapshot, Restaurant.DATA_FOLDER);
+    }
+
+    /**
+     * Creates a Kitchen whose inventory is kept in the given data folder
+     *
+     * @param orderManager The general orderManager used by the restaurant
+     * @param cooks the Cooks of the Kitchen
+     * @param snapshot the snapshot of that data folder, or null to parse the text files
+     * @param folder the data folder of the restaurant
+     */
+    Kitchen(OrderManager orderManager, List<Cook> cooks, DataSnapshot snapshot, String folder) {
+        this.orderManager = orderManager;
+        this.inventoryManager = new InventoryManager(true, orderManager.getMetrics(), snapshot, folder);
+        this.cooks = cooks;
+        this.scheduler = new CookScheduler(cooks);
+    }
+
+    //Will take an order and the given cook will "cook" it, thereby moving it to next stage
+
+    /**
+     * Prompts the given Cook to prepare the given Order
+     *
+     * @param order
+     * @param cook
+     */
+    public void cook(Order order, Cook cook) {
+        // the ingredients are taken first, so an Order that can't be made stays in progress
+        InventoryManager.Reservation reservation = order.getReservation();
+        if (reservation != null) {
+            reservation.commit();
+            order.setReservation(null);
+        } else {
+            inventoryManager.useIngredients(order.getAllIngredients());
+        }
+        orderManager.orderIsCooked(order);
+    }
+
+    /**
+     * Sets aside every ingredient a new Order needs, so it can't run out before the Order is cooked. Checking each
+     * ingredient only looks up its stock and what is already set aside, however many Orders are open
+     *
+     * @param order an Order that hasn't been placed yet
+     * @throws IllegalArgumentException if there isn't enough of an ingredient, and nothing is set aside
+     */
+    void admit(Order order) {
+        order.setReservation(inventoryManager.reserve(order.getAllIngredients()));
+    }
+
+    /**
+     * Takes back a pending Order before any Cook starts it, and frees the ingredients set aside for it
+     *
+     * @param order a pending Order
+     */
+    void cancel(Order order) {
+        orderManager.cancelOrder(order);
+        scheduler.taken(order);
+        release(order);
+    }
+
+    // frees the ingredients set aside for an Order that won't be cooked
+    void release(Order order) {
+        InventoryManager.Reservation reservation = order.getReservation();
+        if (reservation != null) {
+            order.setReservation(null);
+            reservation.release();
+        }
+    }
+
+    public void acceptOrder(Order order, Cook cook) {
+        // the Order may have been waiting in another Cook's queue
+        scheduler.taken(order);
+        orderManager.acceptOrder(order);
+    }
+
+    /**
+     * Queues a newly placed Order for one of the Cooks
+     *
+     * @param order the Order that was just placed
+     */
+    void schedule(Order order) {
+        scheduler.schedule(order);
+    }
+
+    /**
+     * Queues the remake of a rejected Order ahead of every other pending Order
+     *
+     * @param order the remake, just placed
+     */
+    void scheduleRemake(Order order) {
+        scheduler.scheduleRemake(order);
+    }
+
+    /**
+     * Returns the pending Order the given Cook should make next, taking one from a busier Cook if they have none
+     * queued. No other Cook is given the same Order
+     *
+     * @param cook the Cook that is free
+     * @return the Order, or null if no Order is waiting
+     */
+    public Order nextOrder(Cook cook) {
+        return scheduler.next(cook);
+    }
+
+    // returns the scheduler, to set dish priorities
+    CookScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public Cook getCook(String cookID){
+        for (Cook cook : cooks){
+            if (cookID.equals(cook.getID())){
+                return cook;
+            }
+        }
+        throw new IllegalArgumentException("Cook not found");
+    }
+}
+
+
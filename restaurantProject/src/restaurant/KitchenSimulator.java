@@ -0,0 +1,646 @@
+package restaurant;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+
+/**
+ * The KitchenSimulator class. Answers capacity questions, such as what adding a Cook or raising a minimum would do,
+ * by running the real Restaurant, Kitchen, CookScheduler and InventoryManager through simulated days of service.
+ *
+ * Nothing waits for real time. Every event is given the time it happens on a virtual clock and the events are
+ * processed in time order, each one jumping the clock forward, so a week of service runs in seconds. Tables arrive
+ * at random, more of them at lunch and dinner, and order a mix of dishes. Each dish takes its own random time to
+ * cook, the free Cooks take Orders from the CookScheduler, the Servers carry them out and the tables ask for the
+ * bill. A table whose Order can't be made from the stock is turned away, and an Order taken before a restart that
+ * can't be finished waits until a shipment arrives. The supplier delivers every purchase order a fixed lead time
+ * after it is written, and purchase orders are written on the virtual clock too.
+ *
+ * Every scenario gets a copy of the data folder of its own, so several scenarios run at once on different threads
+ * without sharing anything. For each one the simulator reports how many Orders were served, how long the tables
+ * waited for them, how busy the Cooks were, how often the kitchen ran out of stock and the takings.
+ *
+ * A scenario is written as comma separated settings, optionally after a name and a colon, for example
+ * "two cooks: cooks=2, minimum.potato=20". The settings are
+ * cooks, servers        the number of each, 3 by default
+ * rate                  Orders an hour at the busiest hour, 20 by default
+ * days                  the days simulated, 7 by default
+ * tables                the number of tables, 40 by default
+ * lead                  hours from writing a purchase order to its delivery, 4 by default
+ * check                 minutes between looking for short ingredients, 60 by default
+ * seed                  the seed of every random choice, 1 by default
+ * minimum.ingredient    the minimum of an ingredient, replacing the one in minimums.txt
+ * prep.dish             the average minutes to cook one unit of a dish
+ * mix.dish              how often a dish is ordered compared to the others, 1 by default
+ * priority.dish         how much sooner the Cooks make Orders with a dish, from 0, the default, to 3, see
+ *                       CookScheduler
+ *
+ * Usage: KitchenSimulator [--data folder] [--scenarios "base; cooks=4; minimum.potato=20"] [--threads n]
+ * */
+public class KitchenSimulator {
+    private static final long NANOS_PER_MINUTE = 60_000_000_000L;
+    private static final long NANOS_PER_HOUR = 60 * NANOS_PER_MINUTE;
+    private static final long NANOS_PER_DAY = 24 * NANOS_PER_HOUR;
+
+    // how busy each hour of the day is compared to the busiest, with peaks at lunch and dinner
+    private static final double[] HOURLY_LOAD = {0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0.4, 1.0, 0.8, 0.3, 0.2, 0.3,
+            0.6, 0.9, 1.0, 0.7, 0.4, 0, 0};
+    private static final double DISH_MINUTES = 4; // the average time of a dish, plus INGREDIENT_MINUTES per unit
+    private static final double INGREDIENT_MINUTES = 1.5;
+    private static final double PREP_SIGMA = 0.35; // the spread of cooking times, which are lognormal
+    private static final double EXTRA_UNIT_SHARE = 0.25; // the part of every unit but the longest that adds to an Order
+    private static final double SERVE_MINUTES = 1; // the average time a Server takes to carry an Order out
+    private static final double BILL_MINUTES = 40; // the average time a table eats before asking for the bill
+    private static final int MOST_DISHES = 4; // the most dishes one table orders at once
+
+    private final Scenario scenario;
+    private final Restaurant restaurant;
+    private final Kitchen kitchen;
+    private final InventoryManager inventory;
+    private final Path folder;
+    private final Map<String, Food> menu;
+    private final List<String> dishes = new ArrayList<>();
+    private final double[] weights; // the mix of each dish, in the order of dishes
+    private final double[] prepMinutes; // the average time of each dish, in the order of dishes
+    private final Random arrivals;
+    private final Random cooking;
+    private final Random service;
+
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private long sequence; // breaks ties between events at the same time, so they happen in the order scheduled
+    private long now; // the virtual clock, in nanoseconds since the simulation started
+
+    private final Deque<Cook> idleCooks = new ArrayDeque<>();
+    private final Deque<String> idleServers = new ArrayDeque<>();
+    private final Deque<Order> cookedOrders = new ArrayDeque<>(); // waiting for a Server to carry them out
+    private final Map<Order, String> blockedOrders = new LinkedHashMap<>(); // out of stock, and the Cook that made each
+    private final Map<Integer, Long> placedAt = new HashMap<>(); // when each open Order was placed
+
+    private final LatencyHistogram ticketTimes = new LatencyHistogram(); // from placing an Order to serving it
+    private final Map<String, Integer> stockOuts = new TreeMap<>(); // Orders turned away or held up by each ingredient
+    private long placed;
+    private long turnedAway; // Orders the Servers couldn't take for lack of stock
+    private long served;
+    private long cookBusyNanos;
+    private long shipments;
+
+    /**
+     * Prepares a scenario to run from a copy of the given data folder, which is left unchanged
+     * @param scenario the settings to simulate
+     * @param dataFolder the folder holding menu.txt, inventory.txt and minimums.txt
+     * */
+    KitchenSimulator(Scenario scenario, String dataFolder) throws IOException{
+        this.scenario = scenario;
+        this.folder = copyData(dataFolder, scenario);
+
+        List<Server> servers = new ArrayList<>();
+        for (int i = 1; i <= scenario.getInt("servers", 3); i++){
+            servers.add(new Server("server" + i));
+            idleServers.add("server" + i);
+        }
+        List<Cook> cooks = new ArrayList<>();
+        for (int i = 1; i <= scenario.getInt("cooks", 3); i++){
+            cooks.add(new Cook("cook" + i));
+        }
+        if (servers.isEmpty() || cooks.isEmpty()){
+            throw new IllegalArgumentException("A simulation needs at least one server and one cook!");
+        }
+        idleCooks.addAll(cooks);
+
+        restaurant = new Restaurant(folder.toString(), servers, cooks);
+        restaurant.setEventLog(null); // the results are reported at the end, not a line per event
+        kitchen = restaurant.getKitchen();
+        inventory = kitchen.inventoryManager;
+        kitchen.getScheduler().setClock(() -> now);
+        inventory.setAutomaticPurchaseOrders(false);
+
+        menu = new TreeMap<>(restaurant.getMenu());
+        dishes.addAll(menu.keySet());
+        try {
+            if (dishes.isEmpty()){
+                throw new IllegalArgumentException("There is nothing on the menu to simulate!");
+            }
+            scenario.checkDishes(menu.keySet());
+            for (String dish : dishes){
+                int priority = scenario.getInt("priority." + dish, 0);
+                if (priority != 0){
+                    kitchen.getScheduler().setPriority(dish, priority);
+                }
+            }
+        } catch (IllegalArgumentException e){
+            restaurant.close();
+            deleteData(folder);
+            throw e;
+        }
+        weights = new double[dishes.size()];
+        prepMinutes = new double[dishes.size()];
+        for (int i = 0; i < dishes.size(); i++){
+            String dish = dishes.get(i);
+            int units = 0;
+            for (int amount : menu.get(dish).getIngredients().values()){
+                units += amount;
+            }
+            weights[i] = scenario.getDouble("mix." + dish, 1);
+            prepMinutes[i] = scenario.getDouble("prep." + dish, DISH_MINUTES + units * INGREDIENT_MINUTES);
+        }
+        long seed = scenario.getLong("seed", 1);
+        arrivals = new Random(seed);
+        cooking = new Random(seed + 1);
+        service = new Random(seed + 2);
+    }
+
+    /**
+     * Runs the scenario to the end, closes its Restaurant and deletes its copy of the data folder
+     * @return what happened
+     * */
+    Result run() throws IOException{
+        long start = System.nanoTime();
+        long end = scenario.getInt("days", 7) * NANOS_PER_DAY;
+        try {
+            long lead = (long) (scenario.getDouble("lead", 4) * NANOS_PER_HOUR);
+            long check = (long) (scenario.getDouble("check", 60) * NANOS_PER_MINUTE);
+            if (check <= 0 || lead < 0){
+                throw new IllegalArgumentException("The lead time and check interval can't be negative!");
+            }
+            // whatever was ordered while the inventory was loaded arrives first
+            deliverLater(inventory.getOnOrder(), lead);
+            at(check, new Runnable(){
+                @Override
+                public void run(){
+                    deliverLater(inventory.writePurchaseOrder(), lead);
+                    if (now + check <= end + NANOS_PER_DAY){
+                        at(now + check, this);
+                    }
+                }
+            });
+            scheduleArrival(0, end);
+
+            // a day after the last table arrives, whatever hasn't been served never will be
+            while (!events.isEmpty() && events.peek().time <= end + NANOS_PER_DAY){
+                Event event = events.poll();
+                now = event.time;
+                event.action.run();
+            }
+            // the Cooks may still have been busy during the last day
+            return new Result(Math.max(end, now), end, System.nanoTime() - start);
+        } finally {
+            restaurant.close();
+            deleteData(folder);
+        }
+    }
+
+    // schedules the first table to arrive after the given time, thinning arrivals at the busiest rate by the hour
+    private void scheduleArrival(long after, long end){
+        double rate = scenario.getDouble("rate", 20);
+        if (rate <= 0){
+            return;
+        }
+        long time = after;
+        while (true){
+            time += (long) (-Math.log(1 - arrivals.nextDouble()) / rate * NANOS_PER_HOUR);
+            if (time >= end){
+                return;
+            }
+            int hour = (int) (time % NANOS_PER_DAY / NANOS_PER_HOUR);
+            if (arrivals.nextDouble() < HOURLY_LOAD[hour]){
+                break;
+            }
+        }
+        at(time, () -> {
+            takeOrder();
+            scheduleArrival(now, end);
+        });
+    }
+
+    // a table orders a few dishes from one of the Servers
+    private void takeOrder(){
+        Map<String, Integer> chosen = new LinkedHashMap<>();
+        int count = 1 + arrivals.nextInt(MOST_DISHES);
+        for (int i = 0; i < count; i++){
+            chosen.merge(dishes.get(pickDish()), 1, Integer::sum);
+        }
+        StringBuilder foods = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : chosen.entrySet()){
+            if (foods.length() > 0){
+                foods.append(", ");
+            }
+            foods.append(entry.getKey()).append(" x ").append(entry.getValue());
+        }
+        int servers = scenario.getInt("servers", 3);
+        String server = "server" + (1 + arrivals.nextInt(servers));
+        int table = 1 + arrivals.nextInt(Math.max(1, scenario.getInt("tables", 40)));
+
+        int orderNumber = restaurant.reserveOrderNumber();
+        try {
+            process(server + " | takeOrder |  | " + table + " ; " + foods, orderNumber);
+        } catch (IllegalArgumentException e){
+            Map<String, Integer> needed = new HashMap<>();
+            for (Map.Entry<String, Integer> entry : chosen.entrySet()){
+                for (Map.Entry<String, Integer> ingredient : menu.get(entry.getKey()).getIngredients().entrySet()){
+                    needed.merge(ingredient.getKey(), ingredient.getValue() * entry.getValue(), Integer::sum);
+                }
+            }
+            countShortages(needed);
+            turnedAway++;
+            return;
+        }
+        placedAt.put(orderNumber, now);
+        placed++;
+        startCooking();
+    }
+
+    // gives every free Cook the next Order the scheduler picks for them
+    private void startCooking(){
+        while (!idleCooks.isEmpty()){
+            Cook cook = idleCooks.peek();
+            Order order = kitchen.nextOrder(cook);
+            if (order == null){
+                return;
+            }
+            idleCooks.poll();
+            process(cook.getID() + " | cookConfirmOrder | " + order.orderNumber + " |", -1);
+            long prep = prepTime(order);
+            at(now + prep, () -> finishCooking(order, cook, prep));
+        }
+    }
+
+    private void finishCooking(Order order, Cook cook, long prep){
+        cookBusyNanos += prep;
+        idleCooks.add(cook);
+        if (!cooked(order, cook.getID())){
+            // the Cook moves on, and the Order is finished once the ingredients arrive
+            blockedOrders.put(order, cook.getID());
+            countShortages(order.getAllIngredients());
+        }
+        startCooking();
+        startServing();
+    }
+
+    // takes the ingredients of an Order and hands it to the Servers, returning false if there aren't enough
+    private boolean cooked(Order order, String cook){
+        try {
+            process(cook + " | cookFinishedOrder | " + order.orderNumber + " |", -1);
+            cookedOrders.add(order);
+            return true;
+        } catch (IllegalArgumentException e){
+            return false;
+        }
+    }
+
+    // counts every ingredient there isn't enough of for an Order
+    private void countShortages(Map<String, Integer> needed){
+        for (Map.Entry<String, Integer> entry : needed.entrySet()){
+            if (inventory.getAvailable(entry.getKey()) < entry.getValue()){
+                stockOuts.merge(entry.getKey(), 1, Integer::sum);
+            }
+        }
+    }
+
+    // sends every free Server out with the oldest cooked Order
+    private void startServing(){
+        while (!idleServers.isEmpty() && !cookedOrders.isEmpty()){
+            String server = idleServers.poll();
+            Order order = cookedOrders.poll();
+            at(now + exponential(service, SERVE_MINUTES), () -> {
+                process(server + " | tableReceivedOrder | " + order.orderNumber, -1);
+                ticketTimes.record(now - placedAt.remove(order.orderNumber));
+                served++;
+                idleServers.add(server);
+                at(now + exponential(service, BILL_MINUTES),
+                        () -> process(server + " | tableRequestedBill | " + order.orderNumber, -1));
+                startServing();
+            });
+        }
+    }
+
+    // schedules the delivery of a purchase order
+    private void deliverLater(Map<String, Integer> purchaseOrder, long lead){
+        if (purchaseOrder.isEmpty()){
+            return;
+        }
+        StringBuilder shipment = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : purchaseOrder.entrySet()){
+            if (shipment.length() > 0){
+                shipment.append(", ");
+            }
+            shipment.append(entry.getKey()).append(" x ").append(entry.getValue());
+        }
+        at(now + lead, () -> {
+            process("supplier | receiveShipment |  | " + shipment, -1);
+            shipments++;
+            // the Orders held up by a stock-out are tried again
+            for (Map.Entry<Order, String> blocked : new ArrayList<>(blockedOrders.entrySet())){
+                if (cooked(blocked.getKey(), blocked.getValue())){
+                    blockedOrders.remove(blocked.getKey());
+                }
+            }
+            startServing();
+        });
+    }
+
+    // processes an event through the Restaurant, as if it had been read from events.txt
+    private void process(String line, int newOrderNumber){
+        TextScanner scanner = new TextScanner("simulation", line, restaurant.getNames());
+        try {
+            scanner.nextLine();
+        } catch (IOException e){
+            throw new IllegalStateException(e);
+        }
+        restaurant.processEvent(EventRecord.parse(scanner), newOrderNumber);
+    }
+
+    // the time a Cook takes to make an Order: the longest unit, plus a share of the others made alongside it
+    private long prepTime(Order order){
+        double longest = 0;
+        double total = 0;
+        for (OrderLine line : order.getLines()){
+            double mean = prepMinutes[Collections.binarySearch(dishes, line.getFood().toString())];
+            for (int i = 0; i < line.getQuantity(); i++){
+                double minutes = lognormal(cooking, mean);
+                longest = Math.max(longest, minutes);
+                total += minutes;
+            }
+        }
+        return (long) ((longest + EXTRA_UNIT_SHARE * (total - longest)) * NANOS_PER_MINUTE);
+    }
+
+    private int pickDish(){
+        double total = 0;
+        for (double weight : weights){
+            total += weight;
+        }
+        double pick = arrivals.nextDouble() * total;
+        for (int i = 0; i < weights.length; i++){
+            pick -= weights[i];
+            if (pick < 0){
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    private void at(long time, Runnable action){
+        events.add(new Event(time, sequence++, action));
+    }
+
+    private static double lognormal(Random random, double mean){
+        double mu = Math.log(mean) - PREP_SIGMA * PREP_SIGMA / 2;
+        return Math.exp(mu + PREP_SIGMA * random.nextGaussian());
+    }
+
+    private static long exponential(Random random, double meanMinutes){
+        return (long) (-Math.log(1 - random.nextDouble()) * meanMinutes * NANOS_PER_MINUTE);
+    }
+
+    // copies the files a Restaurant reads into a new temporary folder, with the minimums of the scenario
+    private static Path copyData(String dataFolder, Scenario scenario) throws IOException{
+        Path copy = Files.createTempDirectory("simulation");
+        for (String file : new String[]{"menu.txt", "inventory.txt", "minimums.txt", "inventory.journal"}){
+            Path source = Paths.get(dataFolder, file);
+            if (Files.exists(source)){
+                Files.copy(source, copy.resolve(file));
+            }
+        }
+        Map<String, Integer> overrides = scenario.getMinimums();
+        if (!overrides.isEmpty()){
+            Path minimumFile = copy.resolve("minimums.txt");
+            Map<String, Integer> minimums = new LinkedHashMap<>();
+            if (Files.exists(minimumFile)){
+                InventoryManager.readQuantities(minimumFile.toString(), new TextScanner.NameTable(), minimums);
+            }
+            for (Map.Entry<String, Integer> entry : overrides.entrySet()){
+                if (!minimums.containsKey(entry.getKey())){
+                    deleteData(copy);
+                    throw new IllegalArgumentException(entry.getKey() + " is not a valid ingredient!");
+                }
+                minimums.put(entry.getKey(), entry.getValue());
+            }
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(minimumFile))){
+                for (Map.Entry<String, Integer> entry : minimums.entrySet()){
+                    out.println(entry.getKey() + " | " + entry.getValue());
+                }
+            }
+        }
+        return copy;
+    }
+
+    private static void deleteData(Path folder) throws IOException{
+        try (Stream<Path> files = Files.list(folder)){
+            for (Path file : (Iterable<Path>) files::iterator){
+                Files.delete(file);
+            }
+        }
+        Files.delete(folder);
+    }
+
+    /**
+     * Runs every scenario from its own copy of the data folder, several at once
+     * @param scenarios the scenarios to run
+     * @param dataFolder the folder holding menu.txt, inventory.txt and minimums.txt
+     * @param threads the most scenarios run at the same time
+     * @return the result of each scenario, in the order given
+     * */
+    static List<Result> runAll(List<Scenario> scenarios, String dataFolder, int threads)
+            throws IOException, InterruptedException{
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, scenarios.size())));
+        // the Restaurant prints every event, which would only slow the simulations down
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (Scenario scenario : scenarios){
+                futures.add(pool.submit(() -> new KitchenSimulator(scenario, dataFolder).run()));
+            }
+            List<Result> results = new ArrayList<>();
+            for (Future<Result> future : futures){
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e){
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException){
+                        throw (IOException) cause;
+                    }
+                    if (cause instanceof RuntimeException){
+                        throw (RuntimeException) cause;
+                    }
+                    throw new IllegalStateException(cause);
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+            System.setOut(out);
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException{
+        Map<String, String> options = EventLogGenerator.parseOptions(args);
+        String dataFolder = options.getOrDefault("data", Restaurant.DATA_FOLDER);
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        List<Scenario> scenarios = new ArrayList<>();
+        for (String spec : options.getOrDefault("scenarios", "base").split(";")){
+            scenarios.add(Scenario.parse(spec));
+        }
+
+        for (Result result : runAll(scenarios, dataFolder, threads)){
+            System.out.println(result);
+        }
+    }
+
+    /**
+     * A named set of settings, read from text such as "two cooks: cooks=2, minimum.potato=20"
+     * */
+    static class Scenario {
+        private final String name;
+        private final Map<String, String> settings = new LinkedHashMap<>();
+
+        Scenario(String name){
+            this.name = name;
+        }
+
+        static Scenario parse(String spec){
+            String text = spec.trim();
+            int colon = text.indexOf(':');
+            String name = colon != -1 ? text.substring(0, colon).trim() : text;
+            if (colon != -1){
+                text = text.substring(colon + 1);
+            } else if (!text.contains("=")){
+                // a name on its own has no settings
+                text = "";
+            }
+            Scenario scenario = new Scenario(name.isEmpty() ? "base" : name);
+            for (String setting : text.split(",")){
+                if (setting.isBlank()){
+                    continue;
+                }
+                int equals = setting.indexOf('=');
+                if (equals == -1){
+                    throw new IllegalArgumentException("Expected name=value but found " + setting.trim());
+                }
+                scenario.set(setting.substring(0, equals).trim(), setting.substring(equals + 1).trim());
+            }
+            return scenario;
+        }
+
+        // changes one setting, such as "cooks" or "minimum.potato"
+        Scenario set(String key, String value){
+            settings.put(key, value);
+            return this;
+        }
+
+        String getName(){
+            return name;
+        }
+
+        int getInt(String key, int otherwise){
+            String value = settings.get(key);
+            return value == null ? otherwise : Integer.parseInt(value);
+        }
+
+        long getLong(String key, long otherwise){
+            String value = settings.get(key);
+            return value == null ? otherwise : Long.parseLong(value);
+        }
+
+        double getDouble(String key, double otherwise){
+            String value = settings.get(key);
+            return value == null ? otherwise : Double.parseDouble(value);
+        }
+
+        // returns the minimum of every ingredient the scenario changes
+        Map<String, Integer> getMinimums(){
+            Map<String, Integer> minimums = new LinkedHashMap<>();
+            for (Map.Entry<String, String> entry : settings.entrySet()){
+                if (entry.getKey().startsWith("minimum.")){
+                    minimums.put(entry.getKey().substring("minimum.".length()), Integer.parseInt(entry.getValue()));
+                }
+            }
+            return minimums;
+        }
+
+        // checks that every dish the scenario changes is on the menu
+        private void checkDishes(Set<String> menu){
+            for (String key : settings.keySet()){
+                if ((key.startsWith("prep.") || key.startsWith("mix.") || key.startsWith("priority."))
+                        && !menu.contains(key.substring(key.indexOf('.') + 1))){
+                    throw new IllegalArgumentException(key.substring(key.indexOf('.') + 1) + " is not on the menu!");
+                }
+            }
+        }
+
+        @Override
+        public String toString(){
+            return name;
+        }
+    }
+
+    /**
+     * What happened in one scenario
+     * */
+    class Result {
+        final long placedOrders = placed;
+        final long servedOrders = served;
+        final long turnedAwayOrders = turnedAway;
+        final long shipmentsReceived = shipments;
+        final Map<String, Integer> stockOutsByIngredient = new TreeMap<>(stockOuts);
+        final double cookUtilisation;
+        final long revenueCents = restaurant.getLedger().getTotalSales().getCents();
+        final double servedPerDay;
+        final long wallNanos;
+
+        Result(long simulatedNanos, long arrivalNanos, long wallNanos){
+            this.wallNanos = wallNanos;
+            this.cookUtilisation = (double) cookBusyNanos / simulatedNanos / scenario.getInt("cooks", 3);
+            this.servedPerDay = servedOrders * (double) NANOS_PER_DAY / arrivalNanos;
+        }
+
+        // returns the time below which the given share of tables were served, in minutes
+        double getTicketMinutes(double percentile){
+            return ticketTimes.getPercentile(percentile) / (double) NANOS_PER_MINUTE;
+        }
+
+        long getStockOuts(){
+            long total = 0;
+            for (int count : stockOutsByIngredient.values()){
+                total += count;
+            }
+            return total;
+        }
+
+        @Override
+        public String toString(){
+            return String.format("%-20s placed=%d turned away=%d served=%d unserved=%d served/day=%.1f "
+                            + "ticket p50=%.1fm p90=%.1fm p99=%.1fm max=%.1fm cooks busy=%.0f%% shipments=%d "
+                            + "stock-outs=%d %s revenue %s (%.0f ms)",
+                    scenario, placedOrders, turnedAwayOrders, servedOrders, placedOrders - servedOrders, servedPerDay,
+                    getTicketMinutes(50), getTicketMinutes(90), getTicketMinutes(99),
+                    ticketTimes.getMax() / (double) NANOS_PER_MINUTE, cookUtilisation * 100, shipmentsReceived,
+                    getStockOuts(), stockOutsByIngredient, SalesLedger.formatCents(revenueCents), wallNanos / 1e6);
+        }
+    }
+
+    // something that happens at a time on the virtual clock
+    private static class Event implements Comparable<Event> {
+        final long time;
+        final long sequence;
+        final Runnable action;
+
+        Event(long time, long sequence, Runnable action){
+            this.time = time;
+            this.sequence = sequence;
+            this.action = action;
+        }
+
+        @Override
+        public int compareTo(Event other){
+            int byTime = Long.compare(time, other.time);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+}
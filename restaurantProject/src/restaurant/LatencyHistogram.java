@@ -0,0 +1,116 @@
+package restaurant;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The LatencyHistogram class. Counts how many recorded times fall into each of a fixed set of buckets. Each power of
+ * two is split into 8 buckets, so a percentile read back from the histogram is within about 12% of the real value.
+ * Recording is one array increment and never allocates, and several threads can record at once
+ * */
+class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLongArray totals = new AtomicLongArray(2); // count, then sum
+    private volatile long max;
+
+    /**
+     * Records one time
+     * @param nanos the time in nanoseconds, negative times are counted as 0
+     * */
+    void record(long nanos){
+        if (nanos < 0){
+            nanos = 0;
+        }
+        counts.incrementAndGet(bucketOf(nanos));
+        totals.incrementAndGet(0);
+        totals.addAndGet(1, nanos);
+        if (nanos > max){
+            synchronized (this){
+                if (nanos > max){
+                    max = nanos;
+                }
+            }
+        }
+    }
+
+    long getCount(){
+        return totals.get(0);
+    }
+
+    long getMax(){
+        return max;
+    }
+
+    // returns the average of the recorded times, or 0 if there are none
+    double getMean(){
+        long count = getCount();
+        return count == 0 ? 0 : (double) totals.get(1) / count;
+    }
+
+    /**
+     * Returns the time that the given share of recorded times are at or below
+     * @param percentile between 0 and 100
+     * @return the upper edge of the bucket holding that time, never more than the largest recorded time
+     * */
+    long getPercentile(double percentile){
+        long count = getCount();
+        if (count == 0){
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * percentile / 100.0);
+        if (rank < 1){
+            rank = 1;
+        }
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++){
+            seen += counts.get(i);
+            if (seen >= rank){
+                return Math.min(upperEdgeOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    // empties the histogram
+    synchronized void reset(){
+        for (int i = 0; i < BUCKETS; i++){
+            counts.set(i, 0);
+        }
+        totals.set(0, 0);
+        totals.set(1, 0);
+        max = 0;
+    }
+
+    // times below 8 get a bucket each, after that each power of two is split into 8 buckets
+    private static int bucketOf(long value){
+        if (value < SUB_BUCKETS){
+            return (int) value;
+        }
+        int power = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (power - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (power - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperEdgeOf(int bucket){
+        if (bucket < SUB_BUCKETS){
+            return bucket;
+        }
+        int power = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        long width = 1L << (power - SUB_BUCKET_BITS);
+        return (1L << power) + (sub + 1) * width - 1;
+    }
+
+    /**
+     * Describes the histogram in one line, with times in microseconds
+     * */
+    @Override
+    public String toString(){
+        return String.format("count=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus max=%.1fus", getCount(),
+                getMean() / 1000, getPercentile(50) / 1000.0, getPercentile(90) / 1000.0,
+                getPercentile(99) / 1000.0, getMax() / 1000.0);
+    }
+}
@@ -0,0 +1,171 @@
+package restaurant;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.ToIntFunction;
+
+/**
+ * The MenuAvailability class. Keeps, for every dish on the menu, how many portions could be made right now from the
+ * stock that isn't set aside for an Order yet.
+ *
+ * The view is told about every change to the stock as it happens instead of checking every recipe when asked. An
+ * index from each ingredient to the dishes that use it means a change only recounts the dishes it affects, so a
+ * large menu costs nothing when an ingredient few dishes use runs down. Reading the portions of a dish is one array
+ * read and never waits for a change in progress.
+ *
+ * Nothing here takes a lock, as the stock changes while the InventoryManager holds the locks of the ingredients. The
+ * stock of each ingredient is an atomic counter, and a dish is recounted until the count it wrote still matches the
+ * stock, so a thread that recounted from stock another thread has since changed never has the last word
+ * */
+class MenuAvailability {
+    private final Map<String, Integer> dishIds = new HashMap<>(); // the position of each dish in the arrays below
+    private final String[] dishNames;
+    private final int[][] recipeIngredients; // the ingredient ids of each dish
+    private final int[][] recipeAmounts; // the amount of each of those ingredients in one portion
+    private final AtomicIntegerArray portions; // how many of each dish can be made
+
+    private final Map<String, Integer> ingredientIds = new HashMap<>();
+    private final int[][] usedBy; // the dishes that use each ingredient, by ingredient id
+    private final AtomicIntegerArray available; // the stock of each ingredient not set aside
+
+    /**
+     * Creates a view of the given menu with no stock. It is filled in by load
+     * @param menu the foods on the menu
+     * */
+    MenuAvailability(Collection<Food> menu){
+        dishNames = new String[menu.size()];
+        recipeIngredients = new int[menu.size()][];
+        recipeAmounts = new int[menu.size()][];
+        List<List<Integer>> dishesOf = new ArrayList<>();
+        int dish = 0;
+        for (Food food : menu){
+            dishNames[dish] = food.toString();
+            dishIds.put(food.toString(), dish);
+            Map<String, Integer> recipe = food.getIngredients();
+            recipeIngredients[dish] = new int[recipe.size()];
+            recipeAmounts[dish] = new int[recipe.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : recipe.entrySet()){
+                Integer id = ingredientIds.get(entry.getKey());
+                if (id == null){
+                    id = ingredientIds.size();
+                    ingredientIds.put(entry.getKey(), id);
+                    dishesOf.add(new ArrayList<>());
+                }
+                recipeIngredients[dish][i] = id;
+                recipeAmounts[dish][i] = entry.getValue();
+                dishesOf.get(id).add(dish);
+                i++;
+            }
+            dish++;
+        }
+        usedBy = new int[dishesOf.size()][];
+        for (int id = 0; id < usedBy.length; id++){
+            usedBy[id] = dishesOf.get(id).stream().mapToInt(Integer::intValue).toArray();
+        }
+        available = new AtomicIntegerArray(ingredientIds.size());
+        portions = new AtomicIntegerArray(dishNames.length);
+    }
+
+    /**
+     * Sets the stock of every ingredient and recounts every dish. The stock must not change until this returns
+     * @param stock returns the stock of an ingredient that isn't set aside
+     * */
+    void load(ToIntFunction<String> stock){
+        for (Map.Entry<String, Integer> entry : ingredientIds.entrySet()){
+            available.set(entry.getValue(), stock.applyAsInt(entry.getKey()));
+        }
+        for (int dish = 0; dish < dishNames.length; dish++){
+            recount(dish);
+        }
+    }
+
+    /**
+     * Changes the stock of some ingredients and recounts only the dishes that use them
+     * @param amounts the ingredients that changed and the amount of each
+     * @param sign 1 if the amounts were added to the stock, -1 if they were taken or set aside
+     * */
+    void changed(Map<String, Integer> amounts, int sign){
+        for (Map.Entry<String, Integer> entry : amounts.entrySet()){
+            Integer id = ingredientIds.get(entry.getKey());
+            if (id != null){
+                available.addAndGet(id, sign * entry.getValue());
+            }
+        }
+        BitSet recounted = new BitSet(dishNames.length); // so a dish is only recounted once per change
+        for (String ingredient : amounts.keySet()){
+            Integer id = ingredientIds.get(ingredient);
+            if (id == null){
+                continue;
+            }
+            for (int dish : usedBy[id]){
+                if (!recounted.get(dish)){
+                    recounted.set(dish);
+                    recount(dish);
+                }
+            }
+        }
+    }
+
+    /**
+     * Changes the stock of one ingredient as above
+     * @param ingredient the ingredient that changed
+     * @param amount the amount added, negative if it was taken or set aside
+     * */
+    void changed(String ingredient, int amount){
+        Integer id = ingredientIds.get(ingredient);
+        if (id == null){
+            return;
+        }
+        available.addAndGet(id, amount);
+        for (int dish : usedBy[id]){
+            recount(dish);
+        }
+    }
+
+    /**
+     * Returns how many portions of a dish can be made right now
+     * @param dish the name of a dish on the menu
+     * */
+    int getPortions(String dish){
+        Integer id = dishIds.get(dish);
+        if (id == null){
+            throw new IllegalArgumentException(dish + " is not on the menu!");
+        }
+        return portions.get(id);
+    }
+
+    // returns every dish that can be made right now and how many portions of it, in menu order
+    Map<String, Integer> getAvailableDishes(){
+        Map<String, Integer> dishes = new LinkedHashMap<>();
+        for (int dish = 0; dish < dishNames.length; dish++){
+            int count = portions.get(dish);
+            if (count > 0){
+                dishes.put(dishNames[dish], count);
+            }
+        }
+        return dishes;
+    }
+
+    // sets the portions of one dish, again if the stock changed while they were being counted
+    private void recount(int dish){
+        int count;
+        do {
+            count = countPortions(dish);
+            portions.set(dish, count);
+        } while (countPortions(dish) != count);
+    }
+
+    // works out the portions of one dish from the stock of its ingredients. A dish with no ingredients never runs out
+    private int countPortions(int dish){
+        int count = Integer.MAX_VALUE;
+        int[] ingredients = recipeIngredients[dish];
+        int[] amounts = recipeAmounts[dish];
+        for (int i = 0; i < ingredients.length; i++){
+            if (amounts[i] > 0){
+                count = Math.min(count, Math.max(0, available.get(ingredients[i])) / amounts[i]);
+            }
+        }
+        return count;
+    }
+}
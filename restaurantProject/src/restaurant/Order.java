@@ -0,0 +1,199 @@
+package restaurant;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Order class. Orders contain a list of foods to be cooked and are passed through OrderManager and are
+ * given a tableNumber. The foods are kept as OrderLines, each pointing at a food from the menu
+ */
+
+public class Order {
+    private List<OrderLine> lines;
+    private int tableNumber;
+    private static int classOrderNumber = 1;
+    int orderNumber;
+    private OrderStatus status;
+    long stageSince; // System.nanoTime() when the Order entered its current stage
+    long placedAt; // System.nanoTime() when the Order was placed
+    private long priceCents; // the total of every line, kept up to date as lines are added
+    private String server = ""; // the Server who took the Order, if known
+    private boolean billed;
+    private InventoryManager.Reservation reservation; // the ingredients set aside when the Order was taken, if any
+    private int attempt = 1; // 1 for the Order as it was taken, one more for every time it was rejected and remade
+
+    /**
+     * Creates an Order with a tableNumber, OrderNumber, and list of foods.
+     * OrderNumber is set based on the number of Orders taken already
+     * @param tableNumber The number of the table
+     */
+    public Order(int tableNumber){
+        this(tableNumber, reserveOrderNumber());
+    }
+
+    /**
+     * Creates an Order with a tableNumber and an OrderNumber that was reserved beforehand
+     * @param tableNumber The number of the table
+     * @param orderNumber A number returned by reserveOrderNumber
+     */
+    Order(int tableNumber, int orderNumber){
+        this.tableNumber = tableNumber;
+        this.orderNumber = orderNumber;
+        lines = new ArrayList<>();
+        status = OrderStatus.NEW;
+    }
+
+    // Takes the next OrderNumber, so an Order can be numbered before it is created. Orders placed through a Restaurant
+    // are numbered by that Restaurant instead
+    static synchronized int reserveOrderNumber(){
+        int number = classOrderNumber;
+        classOrderNumber += 1;
+        return number;
+    }
+
+    //Returns a Map with the name and amount of each ingredient
+    public Map<String, Integer> getAllIngredients(){
+        if (lines.isEmpty()){
+            return new HashMap<>();
+        }
+        IngredientIndex index = lines.get(0).getFood().getIndex();
+        int recipeLength = 0;
+        for (OrderLine line : lines){
+            if (line.getFood().getIndex() != index){
+                return mergeIngredients();
+            }
+            recipeLength += line.recipeLength();
+        }
+
+        // adds the recipes up by ingredient id, remembering which ids were used so only those are read back
+        int[] totals = index.scratch();
+        int[] used = new int[recipeLength];
+        int usedCount = 0;
+        for (OrderLine line : lines){
+            usedCount = line.addIngredientsTo(totals, used, usedCount);
+        }
+
+        Map<String, Integer> allIngredients = new HashMap<>(usedCount * 2);
+        for (int i = 0; i < usedCount; i++){
+            int id = used[i];
+            allIngredients.put(index.nameOf(id), totals[id]);
+            totals[id] = 0;
+        }
+        return allIngredients;
+    }
+
+    //Adds up the ingredients by name, for foods that don't share an IngredientIndex
+    private Map<String, Integer> mergeIngredients(){
+        Map<String, Integer> allIngredients = new HashMap<>();
+        for (OrderLine line : lines){
+            for (Map.Entry<String, Integer> entry : line.getIngredientsPerUnit().entrySet()){
+                allIngredients.merge(entry.getKey(), entry.getValue() * line.getQuantity(), Integer::sum);
+            }
+        }
+        return allIngredients;
+    }
+
+    //Adds the food to the order
+    public void addFood(Food food){
+        addLine(new OrderLine(food, 1));
+    }
+
+    //Adds a line of foods to the order
+    void addLine(OrderLine line){
+        lines.add(line);
+        priceCents += line.getPriceCents();
+    }
+
+    //Returns the lines of the order
+    List<OrderLine> getLines(){
+        return lines;
+    }
+
+    //Returns every food in the order, one entry per unit ordered
+    public List<Food> getFoods(){
+        List<Food> foods = new ArrayList<>();
+        for (OrderLine line : lines){
+            for (int i = 0; i < line.getQuantity(); i++){
+                foods.add(line.getFood());
+            }
+        }
+        return foods;
+    }
+
+    //Returns the total price of all the foods
+    public float getPrice(){
+        return priceCents / 100f;
+    }
+
+    //Returns the total price of all the foods in cents, without any rounding
+    public long getPriceCents(){
+        return priceCents;
+    }
+
+    // the ID of the Server who took the Order, or "" if it isn't known
+    String getServer(){
+        return server;
+    }
+
+    void setServer(String server){
+        this.server = server == null ? "" : server;
+    }
+
+    // true once the table has been given the bill for this Order
+    boolean isBilled(){
+        return billed;
+    }
+
+    void setBilled(){
+        billed = true;
+    }
+
+    // the ingredients set aside for this Order when it was taken, or null if it holds none
+    InventoryManager.Reservation getReservation(){
+        return reservation;
+    }
+
+    void setReservation(InventoryManager.Reservation reservation){
+        this.reservation = reservation;
+    }
+
+    // 1 for the Order as it was taken, 2 for its first remake and so on
+    int getAttempt(){
+        return attempt;
+    }
+
+    boolean isRemake(){
+        return attempt > 1;
+    }
+
+    /**
+     * Creates a remake of a rejected Order with the same foods, table and Server. The remake keeps the number of the
+     * rejected Order, which is no longer open once it is retrieved, so the numbers in an events file always mean the
+     * same Order whether or not any of them are remade
+     * @return the remake, the next attempt at this Order
+     */
+    Order remake(){
+        Order remake = new Order(tableNumber, orderNumber);
+        for (OrderLine line : lines){
+            remake.addLine(line);
+        }
+        remake.server = server;
+        remake.attempt = attempt + 1;
+        return remake;
+    }
+
+    public int getTableNumber() {
+        return tableNumber;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    // Only OrderManager moves an Order between stages
+    void setStatus(OrderStatus status) {
+        this.status = status;
+    }
+}
@@ -0,0 +1,321 @@
+package restaurant;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * The OrderArchive class. Holds the completed Orders of an OrderManager without keeping all of them on the heap.
+ *
+ * The most recent Orders stay in memory. Once there are more than a set number, the oldest are written to a
+ * temporary archive file and dropped from memory, so memory use stays the same however long the restaurant is open.
+ * An Order can be looked up by its number, or all Orders of a table listed, whether it is in memory or on disk.
+ *
+ * The archive file and its index are memory-mapped a segment at a time. The index has one 8 byte slot per order
+ * number holding where that Order is in the archive file, so a lookup is one read from each. Each Order on disk also
+ * points at the previous Order of the same table, so the Orders of a table can be followed without a search. Both
+ * files are deleted when the archive is closed.
+ *
+ * Each Order in the archive file is stored as: order number, table number, where the previous Order of the table is,
+ * flags (1 if the Order has been billed), the number of lines, the Server who took it, then each line as food name,
+ * quantity, number of changes, and each change as ingredient name and amount. Names are stored as a length and UTF-8
+ * bytes. The flags are the only part of a record that is ever written again
+ * */
+class OrderArchive {
+    static final int DEFAULT_RECENT = 10_000; // how many completed Orders are kept in memory by default
+
+    private static final long DATA_SEGMENT = 64L << 20; // bytes of the archive file mapped at a time
+    private static final int INDEX_SLOTS = 1 << 20; // index slots mapped at a time
+
+    private final int recentCapacity;
+    private final LinkedHashMap<Integer, Order> recent = new LinkedHashMap<>(); // the newest Orders, oldest first
+    private final Map<Integer, ArrayDeque<Order>> recentByTable = new HashMap<>();
+    private final Map<Integer, Long> lastSpilledByTable = new HashMap<>(); // where the newest spilled Order of each
+                                                                           // table is, plus one
+    private final Map<String, Food> foods = new HashMap<>(); // every food spilled so far, to rebuild Orders with
+    private int size;
+
+    private FileChannel data; // created on the first spill
+    private FileChannel index;
+    private Path dataFile;
+    private Path indexFile;
+    private final List<MappedByteBuffer> dataSegments = new ArrayList<>();
+    private final List<MappedByteBuffer> indexSegments = new ArrayList<>();
+    private long end; // where the next Order is written in the archive file
+
+    /**
+     * Creates an empty archive
+     * @param recentCapacity how many completed Orders are kept in memory before the oldest are written to disk
+     * */
+    OrderArchive(int recentCapacity){
+        if (recentCapacity < 1){
+            throw new IllegalArgumentException("The archive must keep at least one order in memory!");
+        }
+        this.recentCapacity = recentCapacity;
+    }
+
+    /**
+     * Adds a completed Order. The oldest Order in memory is written to disk if there are too many
+     * @param order the Order that was just completed
+     * */
+    synchronized void add(Order order){
+        if (contains(order.orderNumber)){
+            throw new IllegalArgumentException("This order has already been archived!");
+        }
+        recent.put(order.orderNumber, order);
+        recentByTable.computeIfAbsent(order.getTableNumber(), k -> new ArrayDeque<>()).addLast(order);
+        size++;
+        if (recent.size() > recentCapacity){
+            Order oldest = recent.values().iterator().next();
+            spill(oldest);
+            recent.remove(oldest.orderNumber);
+            ArrayDeque<Order> table = recentByTable.get(oldest.getTableNumber());
+            table.remove(oldest);
+            if (table.isEmpty()){
+                recentByTable.remove(oldest.getTableNumber());
+            }
+        }
+    }
+
+    /**
+     * Returns the completed Order with the given number, read back from disk if it is no longer in memory
+     * @param orderNumber the number of the Order
+     * @return the Order, or null if no such Order was archived
+     * */
+    synchronized Order get(int orderNumber){
+        Order order = recent.get(orderNumber);
+        if (order != null){
+            return order;
+        }
+        long at = offsetOf(orderNumber);
+        return at == 0 ? null : read(at - 1);
+    }
+
+    /**
+     * Records that the table was given the bill for an archived Order, in memory or on disk
+     * @param orderNumber the number of the Order
+     * */
+    synchronized void markBilled(int orderNumber){
+        Order order = recent.get(orderNumber);
+        if (order != null){
+            order.setBilled();
+            return;
+        }
+        long at = offsetOf(orderNumber);
+        if (at != 0){
+            at--;
+            dataSegments.get((int) (at / DATA_SEGMENT)).putInt((int) (at % DATA_SEGMENT) + 16, 1);
+        }
+    }
+
+    synchronized boolean contains(int orderNumber){
+        return recent.containsKey(orderNumber) || offsetOf(orderNumber) != 0;
+    }
+
+    /**
+     * Returns every completed Order of a table, newest first
+     * @param tableNumber the number of the table
+     * */
+    synchronized List<Order> getTableOrders(int tableNumber){
+        List<Order> orders = new ArrayList<>();
+        ArrayDeque<Order> inMemory = recentByTable.get(tableNumber);
+        if (inMemory != null){
+            Iterator<Order> it = inMemory.descendingIterator();
+            while (it.hasNext()){
+                orders.add(it.next());
+            }
+        }
+        long at = lastSpilledByTable.getOrDefault(tableNumber, 0L);
+        while (at != 0){
+            orders.add(read(at - 1));
+            at = previousOf(at - 1);
+        }
+        return orders;
+    }
+
+    // returns the number of Orders archived, in memory and on disk
+    synchronized int size(){
+        return size;
+    }
+
+    // returns the number of Orders still in memory
+    synchronized int countInMemory(){
+        return recent.size();
+    }
+
+    // deletes the archive files. The archive can't be used afterwards
+    synchronized void close(){
+        recent.clear();
+        recentByTable.clear();
+        dataSegments.clear();
+        indexSegments.clear();
+        try {
+            if (data != null){
+                data.close();
+                index.close();
+                Files.deleteIfExists(dataFile);
+                Files.deleteIfExists(indexFile);
+            }
+        } catch (IOException e){
+            e.printStackTrace();
+        }
+    }
+
+    // writes an Order to the end of the archive file and records where it is in the index
+    private void spill(Order order){
+        try {
+            if (data == null){
+                open();
+            }
+            byte[] record = encode(order, lastSpilledByTable.getOrDefault(order.getTableNumber(), 0L));
+            if (record.length > DATA_SEGMENT){
+                throw new IllegalArgumentException("This order is too big to archive!");
+            }
+            if (end % DATA_SEGMENT + record.length > DATA_SEGMENT){
+                // an Order never spans two segments
+                end += DATA_SEGMENT - end % DATA_SEGMENT;
+            }
+            MappedByteBuffer segment = dataSegment(end);
+            segment.put((int) (end % DATA_SEGMENT), record);
+            indexSegment(order.orderNumber).putLong(slotOf(order.orderNumber), end + 1);
+            lastSpilledByTable.put(order.getTableNumber(), end + 1);
+            end += record.length;
+            for (OrderLine line : order.getLines()){
+                foods.putIfAbsent(line.getFood().toString(), line.getFood());
+            }
+        } catch (IOException e){
+            throw new IllegalStateException("The order archive could not be written!", e);
+        }
+    }
+
+    private void open() throws IOException{
+        dataFile = Files.createTempFile("orders-", ".archive");
+        indexFile = Files.createTempFile("orders-", ".index");
+        dataFile.toFile().deleteOnExit();
+        indexFile.toFile().deleteOnExit();
+        data = FileChannel.open(dataFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = FileChannel.open(indexFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private byte[] encode(Order order, long previous){
+        byte[] server = bytes(order.getServer());
+        int length = 4 + 4 + 8 + 4 + 4 + 4 + server.length;
+        List<OrderLine> lines = order.getLines();
+        List<byte[]> names = new ArrayList<>();
+        for (OrderLine line : lines){
+            byte[] food = bytes(line.getFood().toString());
+            names.add(food);
+            length += 4 + food.length + 4 + 4;
+            for (int i = 0; i < line.getChangeCount(); i++){
+                byte[] name = bytes(line.getChangedName(i));
+                names.add(name);
+                length += 4 + name.length + 4;
+            }
+        }
+        ByteBuffer record = ByteBuffer.allocate(length);
+        record.putInt(order.orderNumber).putInt(order.getTableNumber()).putLong(previous)
+                .putInt(order.isBilled() ? 1 : 0).putInt(lines.size()).putInt(server.length).put(server);
+        int name = 0;
+        for (OrderLine line : lines){
+            byte[] food = names.get(name++);
+            record.putInt(food.length).put(food).putInt(line.getQuantity()).putInt(line.getChangeCount());
+            for (int i = 0; i < line.getChangeCount(); i++){
+                byte[] ingredient = names.get(name++);
+                record.putInt(ingredient.length).put(ingredient).putInt(line.getChange(i));
+            }
+        }
+        return record.array();
+    }
+
+    // rebuilds the Order written at the given place in the archive file
+    private Order read(long at){
+        MappedByteBuffer segment = dataSegments.get((int) (at / DATA_SEGMENT));
+        int position = (int) (at % DATA_SEGMENT);
+        int orderNumber = segment.getInt(position);
+        int tableNumber = segment.getInt(position + 4);
+        boolean billed = segment.getInt(position + 16) != 0;
+        int lineCount = segment.getInt(position + 20);
+        String server = string(segment, position + 24);
+        position += 28 + segment.getInt(position + 24);
+
+        Order order = new Order(tableNumber, orderNumber);
+        order.setServer(server);
+        if (billed){
+            order.setBilled();
+        }
+        for (int l = 0; l < lineCount; l++){
+            String foodName = string(segment, position);
+            position += 4 + segment.getInt(position);
+            int quantity = segment.getInt(position);
+            int changeCount = segment.getInt(position + 4);
+            position += 8;
+            List<String> additions = new ArrayList<>();
+            List<String> removals = new ArrayList<>();
+            for (int c = 0; c < changeCount; c++){
+                String ingredient = string(segment, position);
+                position += 4 + segment.getInt(position);
+                int change = segment.getInt(position);
+                position += 4;
+                for (int i = 0; i < Math.abs(change); i++){
+                    (change > 0 ? additions : removals).add(ingredient);
+                }
+            }
+            order.addLine(OrderLine.withChanges(foods.get(foodName), quantity, additions, removals));
+        }
+        order.setStatus(OrderStatus.COMPLETED);
+        return order;
+    }
+
+    // returns where the previous Order of the same table as the one at the given place is, plus one
+    private long previousOf(long at){
+        return dataSegments.get((int) (at / DATA_SEGMENT)).getLong((int) (at % DATA_SEGMENT) + 8);
+    }
+
+    private MappedByteBuffer dataSegment(long at) throws IOException{
+        int number = (int) (at / DATA_SEGMENT);
+        while (dataSegments.size() <= number){
+            // mapping for writing grows the file to the end of the segment
+            dataSegments.add(data.map(FileChannel.MapMode.READ_WRITE, dataSegments.size() * DATA_SEGMENT,
+                    DATA_SEGMENT));
+        }
+        return dataSegments.get(number);
+    }
+
+    private MappedByteBuffer indexSegment(int orderNumber) throws IOException{
+        int number = orderNumber / INDEX_SLOTS;
+        while (indexSegments.size() <= number){
+            indexSegments.add(index.map(FileChannel.MapMode.READ_WRITE, (long) indexSegments.size() * INDEX_SLOTS * 8,
+                    (long) INDEX_SLOTS * 8));
+        }
+        return indexSegments.get(number);
+    }
+
+    private static int slotOf(int orderNumber){
+        return (orderNumber % INDEX_SLOTS) * 8;
+    }
+
+    // returns where the Order with the given number is in the archive file plus one, or 0 if it isn't on disk
+    private long offsetOf(int orderNumber){
+        int number = orderNumber / INDEX_SLOTS;
+        if (orderNumber < 0 || number >= indexSegments.size()){
+            return 0;
+        }
+        return indexSegments.get(number).getLong(slotOf(orderNumber));
+    }
+
+    private static byte[] bytes(String text){
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(MappedByteBuffer segment, int position){
+        byte[] bytes = new byte[segment.getInt(position)];
+        segment.get(position + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
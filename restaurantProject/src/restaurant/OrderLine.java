@@ -0,0 +1,168 @@
+package restaurant;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The OrderLine class. One line of an Order, like "Burger x 2 +lettuce": a food from the menu, how many of it were
+ * ordered and the changes made to each of them.
+ *
+ * The food is the menu's own Food, shared by every Order, and is never changed. The changes are kept separately as
+ * a small list of ingredient ids and how much each one goes up or down by, so ordering eight Burgers does not copy
+ * the Burger recipe eight times
+ */
+class OrderLine {
+    private final Food food;
+    private final int quantity;
+    private final int[] changedIds; // ingredients added to or removed from each unit
+    private final int[] changes; // how much each of those ingredients changes by, negative for removals
+    private final long priceCents; // the price of every unit, at the menu price when the line was ordered
+
+    /**
+     * Creates a line for the given number of unchanged foods
+     * @param food the food from the menu
+     * @param quantity how many were ordered
+     */
+    OrderLine(Food food, int quantity){
+        this(food, quantity, new int[0], new int[0]);
+    }
+
+    private OrderLine(Food food, int quantity, int[] changedIds, int[] changes){
+        this.food = food;
+        this.quantity = quantity;
+        this.changedIds = changedIds;
+        this.changes = changes;
+        this.priceCents = food.getPriceCents() * quantity;
+    }
+
+    /**
+     * Creates a line for the given number of foods, each with one more of every addition and one less of every
+     * removal
+     * @param food the food from the menu
+     * @param quantity how many were ordered
+     * @param additions the ingredients added to each unit
+     * @param removals the ingredients removed from each unit
+     * @throws IllegalArgumentException if a change names an ingredient that isn't on the menu or in the inventory
+     */
+    static OrderLine withChanges(Food food, int quantity, List<String> additions, List<String> removals){
+        IngredientIndex index = food.getIndex();
+        int[] ids = new int[additions.size() + removals.size()];
+        int[] amounts = new int[ids.length];
+        int count = 0;
+        for (int i = 0; i < ids.length; i++){
+            boolean added = i < additions.size();
+            String name = added ? additions.get(i) : removals.get(i - additions.size());
+            int id = index.find(name);
+            if (id == -1){
+                throw new IllegalArgumentException("We don't have any " + name + " for that order!");
+            }
+            int at = indexOf(ids, count, id);
+            if (at == -1){
+                at = count++;
+                ids[at] = id;
+            }
+            amounts[at] += added ? 1 : -1;
+        }
+        return new OrderLine(food, quantity, Arrays.copyOf(ids, count), Arrays.copyOf(amounts, count));
+    }
+
+    Food getFood(){
+        return food;
+    }
+
+    int getQuantity(){
+        return quantity;
+    }
+
+    // returns the price of every unit in this line
+    float getPrice(){
+        return priceCents / 100f;
+    }
+
+    // returns the price of every unit in this line in cents
+    long getPriceCents(){
+        return priceCents;
+    }
+
+    /**
+     * Adds the ingredients of every unit in this line to the given totals, indexed by ingredient id. An ingredient
+     * cannot go below 0 for a unit, however much of it was removed
+     * @param totals the totals to add to, indexed by the ids of the food's IngredientIndex
+     * @param used the ids that were 0 in totals before being added to are appended here
+     * @param usedCount how many ids are already in used
+     * @return the new number of ids in used
+     */
+    int addIngredientsTo(int[] totals, int[] used, int usedCount){
+        int[] ids = food.getIngredientIds();
+        int[] amounts = food.getAmounts();
+        for (int i = 0; i < ids.length; i++){
+            int at = indexOf(changedIds, changedIds.length, ids[i]);
+            int amount = at == -1 ? amounts[i] : Math.max(0, amounts[i] + changes[at]);
+            usedCount = add(totals, used, usedCount, ids[i], amount * quantity);
+        }
+        for (int i = 0; i < changedIds.length; i++){
+            if (changes[i] > 0 && indexOf(ids, ids.length, changedIds[i]) == -1){
+                usedCount = add(totals, used, usedCount, changedIds[i], changes[i] * quantity);
+            }
+        }
+        return usedCount;
+    }
+
+    // returns how many ingredients were added to or removed from each unit
+    int getChangeCount(){
+        return changedIds.length;
+    }
+
+    // returns the name of the i-th changed ingredient
+    String getChangedName(int i){
+        return food.getIndex().nameOf(changedIds[i]);
+    }
+
+    // returns how much the i-th changed ingredient goes up by for each unit, negative if it was removed
+    int getChange(int i){
+        return changes[i];
+    }
+
+    // returns the most ingredient ids addIngredientsTo can append to used
+    int recipeLength(){
+        return food.getIngredientIds().length + changedIds.length;
+    }
+
+    // returns the name and amount of each ingredient for a single unit of this line
+    Map<String, Integer> getIngredientsPerUnit(){
+        Map<String, Integer> ingredients = new LinkedHashMap<>(food.getIngredients());
+        IngredientIndex index = food.getIndex();
+        for (int i = 0; i < changedIds.length; i++){
+            String name = index.nameOf(changedIds[i]);
+            int amount = ingredients.getOrDefault(name, 0) + changes[i];
+            if (amount > 0){
+                ingredients.put(name, amount);
+            } else {
+                ingredients.remove(name);
+            }
+        }
+        return ingredients;
+    }
+
+    private static int add(int[] totals, int[] used, int usedCount, int id, int amount){
+        if (amount == 0){
+            return usedCount;
+        }
+        if (totals[id] == 0){
+            used[usedCount++] = id;
+        }
+        totals[id] += amount;
+        return usedCount;
+    }
+
+    private static int indexOf(int[] array, int length, int value){
+        for (int i = 0; i < length; i++){
+            if (array[i] == value){
+                return i;
+            }
+        }
+        return -1;
+    }
+}
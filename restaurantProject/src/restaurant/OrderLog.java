@@ -0,0 +1,389 @@
+package restaurant;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The OrderLog class.
+ * A write-ahead log of every Order placed and every change to its status, so the open Orders of an OrderManager can
+ * be rebuilt after a crash.
+ *
+ * Entries are numbered and buffered in memory. A background thread writes everything buffered in one append and
+ * forces it to disk every COMMIT_INTERVAL_MILLIS, so one fsync covers every entry of that interval however many
+ * threads made them. A thread that can't go on until its entries are on disk calls sync, which commits at once and
+ * shares the fsync with every other thread waiting at the same time. Changes an entry depends on that are kept in
+ * another file, like the inventory journal, are written by the writeFirst callback before each commit, so the log
+ * is never on disk ahead of them.
+ *
+ * Every few seconds the OrderManager writes a checkpoint holding the Orders still open and the number of the last
+ * entry it contains, and the entries up to that number are removed from the log. Recovery loads the checkpoint and
+ * applies the newer entries of the log. A partially written last entry, as left by a crash, is ignored
+ *
+ * Each line of the log is in the format sequence | entry, where an entry is one of
+ * place | order number | table number | server | foods, with the foods as in a takeOrder event
+ * status | order number | status
+ * The checkpoint starts with the line "# log | last sequence | highest order number" followed by one entry of each
+ * kind for every open Order
+ * */
+class OrderLog {
+    private static final long COMMIT_INTERVAL_MILLIS = 5;
+    private static final long CHECKPOINT_INTERVAL_MILLIS = 5000;
+    private static final String HEADER = "# log";
+
+    private final String logFile;
+    private final String checkpointFile;
+    private final LatencyHistogram commitTimes; // how long each write and fsync of the log takes
+    private FileChannel channel;
+    private ScheduledExecutorService background;
+
+    private StringBuilder buffer = new StringBuilder(); // guarded by this
+    private long lastSequence; // number of the last entry recorded, guarded by this
+    private long lastDurable; // number of the last entry forced to disk, guarded by this
+    private boolean committing; // true while a thread is writing the log, guarded by this
+    private final Object fileLock = new Object(); // held while the log file is written or replaced
+    private volatile Runnable writeFirst; // forces to disk what the entries being committed depend on, or null
+
+    /**
+     * Opens the log, appending to the given file
+     * @param logFile the file the entries are written to
+     * @param checkpointFile the file the checkpoints are written to
+     * @param lastSequence the number of the last entry already in the log or in the checkpoint
+     * @param commitTimes the histogram the time taken by each commit is recorded in
+     * */
+    OrderLog(String logFile, String checkpointFile, long lastSequence, LatencyHistogram commitTimes) throws IOException{
+        this.logFile = logFile;
+        this.checkpointFile = checkpointFile;
+        this.commitTimes = commitTimes;
+        this.lastSequence = lastSequence;
+        this.lastDurable = lastSequence;
+        this.channel = open(logFile);
+    }
+
+    /**
+     * Starts the thread that commits the log and writes checkpoints
+     * @param checkpoint writes a checkpoint, called every CHECKPOINT_INTERVAL_MILLIS
+     * */
+    void startBackground(Runnable checkpoint){
+        background = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "order-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        background.scheduleWithFixedDelay(this::commit, COMMIT_INTERVAL_MILLIS, COMMIT_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+        background.scheduleWithFixedDelay(checkpoint, CHECKPOINT_INTERVAL_MILLIS, CHECKPOINT_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sets what has to be on disk before each commit of the log. It is run after the entries to commit are taken,
+     * so everything recorded before those entries is covered
+     * @param flush forces the other files to disk, or null if there are none
+     * */
+    void writeFirst(Runnable flush){
+        this.writeFirst = flush;
+    }
+
+    // records that an Order was placed
+    synchronized void placed(Order order){
+        append("place | " + order.orderNumber + " | " + order.getTableNumber() + " | " + order.getServer() + " | "
+                + describe(order));
+    }
+
+    // records that an Order moved to the given stage
+    synchronized void moved(Order order, OrderStatus status){
+        append("status | " + order.orderNumber + " | " + status);
+    }
+
+    synchronized long getLastSequence(){
+        return lastSequence;
+    }
+
+    /**
+     * Waits until every entry recorded so far is on disk. Threads that call this at the same time share one write
+     * and one fsync
+     * */
+    void sync(){
+        long wanted;
+        synchronized (this){
+            wanted = lastSequence;
+        }
+        while (true){
+            synchronized (this){
+                if (lastDurable >= wanted){
+                    return;
+                }
+                if (committing){
+                    try {
+                        wait();
+                    } catch (InterruptedException e){
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    continue;
+                }
+            }
+            commit();
+        }
+    }
+
+    /**
+     * Writes every buffered entry to the log in one append and forces it to disk
+     * */
+    void commit(){
+        String entries;
+        long through;
+        synchronized (this){
+            if (committing || buffer.length() == 0){
+                return;
+            }
+            committing = true;
+            entries = buffer.toString();
+            buffer.setLength(0);
+            through = lastSequence;
+        }
+        long start = System.nanoTime();
+        try {
+            Runnable first = writeFirst;
+            if (first != null){
+                first.run();
+            }
+            synchronized (fileLock){
+                ByteBuffer bytes = ByteBuffer.wrap(entries.getBytes(StandardCharsets.UTF_8));
+                while (bytes.hasRemaining()){
+                    channel.write(bytes);
+                }
+                channel.force(false);
+            }
+            commitTimes.record(System.nanoTime() - start);
+        } catch (IOException e){
+            e.printStackTrace();
+        } finally {
+            synchronized (this){
+                committing = false;
+                lastDurable = Math.max(lastDurable, through);
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Writes a checkpoint and removes the entries it contains from the log. The checkpoint is replaced in one step
+     * and only then is the log shortened, so a crash at any point leaves a checkpoint and a log that bring the open
+     * Orders up to date
+     * @param openOrders the entries describing every open Order
+     * @param through the number of the last entry the open Orders reflect
+     * @param highestOrderNumber the highest number given to an Order so far
+     * */
+    void checkpoint(List<String> openOrders, long through, int highestOrderNumber){
+        sync();
+        synchronized (fileLock){
+            try {
+                Path temp = Paths.get(checkpointFile + ".tmp");
+                StringBuilder text = new StringBuilder();
+                text.append(HEADER).append(" | ").append(through).append(" | ").append(highestOrderNumber)
+                        .append(System.lineSeparator());
+                for (String entry : openOrders){
+                    text.append(entry).append(System.lineSeparator());
+                }
+                writeDurably(temp, text.toString());
+                Files.move(temp, Paths.get(checkpointFile), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+
+                // keep the entries made since the checkpoint was taken
+                StringBuilder kept = new StringBuilder();
+                try (BufferedReader reader = new BufferedReader(new FileReader(logFile))){
+                    String line;
+                    while ((line = reader.readLine()) != null){
+                        int bar = line.indexOf(" | ");
+                        if (bar != -1 && Long.parseLong(line.substring(0, bar)) > through){
+                            kept.append(line).append(System.lineSeparator());
+                        }
+                    }
+                }
+                Path log = Paths.get(logFile);
+                Path shortened = Paths.get(logFile + ".tmp");
+                writeDurably(shortened, kept.toString());
+                channel.close();
+                Files.move(shortened, log, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                channel = open(logFile);
+            } catch (IOException | NumberFormatException e){
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // commits everything and stops the background thread
+    void close(){
+        if (background != null){
+            background.shutdown();
+            try {
+                background.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }
+        sync();
+        synchronized (fileLock){
+            try {
+                channel.close();
+            } catch (IOException e){
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void append(String entry){
+        lastSequence++;
+        buffer.append(lastSequence).append(" | ").append(entry).append(System.lineSeparator());
+    }
+
+    private static FileChannel open(String file) throws IOException{
+        return FileChannel.open(Paths.get(file), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    private static void writeDurably(Path file, String text) throws IOException{
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)){
+            ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()){
+                out.write(bytes);
+            }
+            out.force(false);
+        }
+    }
+
+    // writes the foods of an Order as in a takeOrder event, e.g. "Burger x 2 +lettuce, Fries x 1 -salt"
+    static String describe(Order order){
+        StringBuilder foods = new StringBuilder();
+        for (OrderLine line : order.getLines()){
+            if (foods.length() > 0){
+                foods.append(", ");
+            }
+            foods.append(line.getFood()).append(" x ").append(line.getQuantity());
+            for (int i = 0; i < line.getChangeCount(); i++){
+                char sign = line.getChange(i) > 0 ? '+' : '-';
+                for (int n = 0; n < Math.abs(line.getChange(i)); n++){
+                    foods.append(' ').append(sign).append(line.getChangedName(i));
+                }
+            }
+        }
+        return foods.toString();
+    }
+
+    /**
+     * Reads the checkpoint and the log and works out which Orders were open when they were last written
+     * @param logFile the log file
+     * @param checkpointFile the checkpoint file
+     * @return the open Orders, or an empty recovery if neither file exists
+     * */
+    static Recovery recover(String logFile, String checkpointFile) throws IOException{
+        Recovery recovery = new Recovery();
+        if (new File(checkpointFile).exists()){
+            try (BufferedReader reader = new BufferedReader(new FileReader(checkpointFile))){
+                String line = reader.readLine();
+                if (line != null && line.startsWith(HEADER)){
+                    String[] header = line.split(" \\| ");
+                    recovery.lastSequence = Long.parseLong(header[1]);
+                    recovery.highestOrderNumber = Integer.parseInt(header[2]);
+                    line = reader.readLine();
+                }
+                while (line != null){
+                    recovery.apply(line);
+                    line = reader.readLine();
+                }
+            }
+        }
+        long checkpointed = recovery.lastSequence;
+        if (new File(logFile).exists()){
+            try (BufferedReader reader = new BufferedReader(new FileReader(logFile))){
+                String line;
+                while ((line = reader.readLine()) != null){
+                    int bar = line.indexOf(" | ");
+                    long sequence;
+                    try {
+                        sequence = Long.parseLong(line.substring(0, Math.max(bar, 0)));
+                    } catch (NumberFormatException e){
+                        break;
+                    }
+                    if (sequence > checkpointed){
+                        if (!recovery.apply(line.substring(bar + 3))){
+                            break;
+                        }
+                        recovery.lastSequence = sequence;
+                    }
+                }
+            }
+        }
+        return recovery;
+    }
+
+    /**
+     * The Orders that were open when the log was last written, oldest first, and where numbering carries on from
+     * */
+    static class Recovery {
+        final Map<Integer, OpenOrder> openOrders = new LinkedHashMap<>();
+        long lastSequence;
+        int highestOrderNumber;
+
+        // applies one entry, returning false if it is only partially written
+        private boolean apply(String entry){
+            // split by hand, as a regular expression per entry is most of the time recovery takes
+            String[] fields = new String[5];
+            int count = 0;
+            int from = 0;
+            while (count < fields.length - 1){
+                int bar = entry.indexOf(" | ", from);
+                if (bar == -1){
+                    break;
+                }
+                fields[count++] = entry.substring(from, bar);
+                from = bar + 3;
+            }
+            fields[count++] = entry.substring(from);
+            try {
+                int orderNumber = Integer.parseInt(fields[1]);
+                if (fields[0].equals("place") && count == 5){
+                    openOrders.put(orderNumber, new OpenOrder(Integer.parseInt(fields[2]), fields[3], fields[4]));
+                    highestOrderNumber = Math.max(highestOrderNumber, orderNumber);
+                } else if (fields[0].equals("status") && count == 3){
+                    OrderStatus status = OrderStatus.valueOf(fields[2]);
+                    // a retrieved Order was either completed straight after or rejected and replaced by a remake
+                    if (status == OrderStatus.COMPLETED || status == OrderStatus.CANCELLED
+                            || status == OrderStatus.RETRIEVED){
+                        openOrders.remove(orderNumber);
+                    } else if (openOrders.containsKey(orderNumber)){
+                        openOrders.get(orderNumber).status = status;
+                    }
+                } else {
+                    return false;
+                }
+            } catch (IllegalArgumentException | NullPointerException e){
+                return false;
+            }
+            return true;
+        }
+    }
+
+    // an Order as it was written to the log
+    static class OpenOrder {
+        final int tableNumber;
+        final String server;
+        final String foods;
+        OrderStatus status = OrderStatus.PENDING;
+
+        OpenOrder(int tableNumber, String server, String foods){
+            this.tableNumber = tableNumber;
+            this.server = server;
+            this.foods = foods;
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package restaurant;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The OrderManager class. Keeps track of Orders in their various stages of completion and updates their statuses
+ * when necessary
+ *
+ * Every Order is indexed by its order number and carries its current OrderStatus, so looking an Order up or moving
+ * it to the next stage takes constant time no matter how many Orders are open. Each stage keeps its Orders in the
+ * order they arrived. All methods are synchronized so Orders can be moved from several threads at once
+ *
+ * Completed Orders are handed to an OrderArchive and no longer indexed here, so only the most recent of them are
+ * kept in memory however many are completed. They are also added to a SalesLedger, which keeps the tabs and sales
+ * totals up to date as Orders are completed and billed
+ *
+ * If an OrderLog is opened, every Order placed and every change of stage is written to it, and the open Orders are
+ * checkpointed to it every few seconds, so they can be rebuilt after a crash
+ * */
+
+public class OrderManager {
+    private Map<Integer, Order> orders; // every Order placed so far, indexed by order number
+    private LinkedHashMap<Integer, Order> pendingOrders; // server placed order, cooking not started
+    private LinkedHashMap<Integer, Order> ordersInProgress; // cook confirmed order, cooking in progress
+    private LinkedHashMap<Integer, Order> cookedOrders; // order has been cooked, waiting for server pick up
+    private OrderArchive completedOrders; // order has been delivered and accepted by customer
+    private final RestaurantMetrics metrics;
+    private final SalesLedger ledger = new SalesLedger();
+    private OrderLog log; // null unless the Orders are logged
+    private int highestOrderNumber; // the highest number of any Order placed so far
+
+    // a read-only view of pendingOrders as a list
+    private final List<Order> pendingView = new AbstractList<Order>(){
+        @Override
+        public Iterator<Order> iterator(){
+            return Collections.unmodifiableCollection(pendingOrders.values()).iterator();
+        }
+
+        @Override
+        public Order get(int index){
+            Objects.checkIndex(index, pendingOrders.size());
+            Iterator<Order> pending = pendingOrders.values().iterator();
+            for (int i = 0; i < index; i++){
+                pending.next();
+            }
+            return pending.next();
+        }
+
+        @Override
+        public int size(){
+            return pendingOrders.size();
+        }
+    };
+
+    OrderManager(){
+        this(new RestaurantMetrics());
+    }
+
+    /**
+     * Creates an OrderManager that reports the number of Orders in each stage, and how long they stay there, to the
+     * given metrics
+     * @param metrics the metrics of the Restaurant
+     * */
+    OrderManager(RestaurantMetrics metrics){
+        this(metrics, OrderArchive.DEFAULT_RECENT);
+    }
+
+    /**
+     * Creates an OrderManager as above
+     * @param metrics the metrics of the Restaurant
+     * @param recentCompleted how many completed Orders are kept in memory before older ones are archived to disk
+     * */
+    OrderManager(RestaurantMetrics metrics, int recentCompleted){
+        this.metrics = metrics;
+        orders = new HashMap<>();
+        pendingOrders = new LinkedHashMap<>();
+        ordersInProgress = new LinkedHashMap<>();
+        cookedOrders = new LinkedHashMap<>();
+        completedOrders = new OrderArchive(recentCompleted);
+    }
+
+    /**
+     * getter for list of pending Orders, oldest first. As before, the list is the manager's own and follows the
+     * Orders as they are placed and taken, so it must not be read while other threads are moving Orders. It can't be
+     * changed through the list
+     * */
+    public List<Order> getPendingOrders(){
+        return pendingView;
+    }
+
+    // returns the oldest pending Order, or null if nothing is waiting to be cooked
+    public synchronized Order getFirstPending(){
+        if (pendingOrders.isEmpty())
+            return null;
+        return pendingOrders.values().iterator().next();
+    }
+
+    /**
+     * Submits an Order to the kitchen through the OrderManager
+     * @param order the Order being placed
+     * */
+    public synchronized void placeOrder(Order order){
+        if (!orders.containsKey(order.orderNumber) && !completedOrders.contains(order.orderNumber)){
+            orders.put(order.orderNumber, order);
+            pendingOrders.put(order.orderNumber, order);
+            highestOrderNumber = Math.max(highestOrderNumber, order.orderNumber);
+            order.placedAt = System.nanoTime();
+            if (log != null){
+                log.placed(order);
+            }
+            moveTo(order, OrderStatus.PENDING);
+        } else
+            throw new IllegalArgumentException("This order has already been placed!");
+    }
+
+    /**
+     * Updates the status of an Order that has been accepted by a cook from pending to in progress
+     * @param order the Order that is now being cooked
+     * */
+    public synchronized void acceptOrder(Order order){
+        if (isIn(order, OrderStatus.PENDING)){
+            pendingOrders.remove(order.orderNumber);
+            ordersInProgress.put(order.orderNumber, order);
+            moveTo(order, OrderStatus.IN_PROGRESS);
+        } else{
+            throw new IllegalArgumentException("This order isn't in the list of orders waiting to be cooked!");
+        }
+    }
+
+    /**
+     * Takes back a pending Order before any cook starts it. It is no longer kept anywhere
+     * @param order the Order being cancelled
+     * */
+    public synchronized void cancelOrder(Order order){
+        if (isIn(order, OrderStatus.PENDING)){
+            pendingOrders.remove(order.orderNumber);
+            orders.remove(order.orderNumber);
+            moveTo(order, OrderStatus.CANCELLED);
+        } else {
+            throw new IllegalArgumentException("This order isn't in the list of orders waiting to be cooked!");
+        }
+    }
+
+    /**
+     * Updates the status of an Order from being cooked to cooked
+     * @param order the Order that is now cooked and ready to be served
+     * */
+    public synchronized void orderIsCooked(Order order){
+        if (isIn(order, OrderStatus.IN_PROGRESS)){
+            ordersInProgress.remove(order.orderNumber);
+            cookedOrders.put(order.orderNumber, order);
+            moveTo(order, OrderStatus.COOKED);
+            if (order.isRemake()){
+                metrics.wasted(order.getAllIngredients());
+            }
+        } else {
+            throw new IllegalArgumentException("This order wasn't being cooked!");
+        }
+    }
+
+    /**
+     * Used when an Order is retrieved from the Kitchen and brought out to the customer. It is no longer indexed here:
+     * either the customer accepts it and it is passed to confirmCompleted, or they reject it and a remake takes its
+     * place, so a rejected Order isn't kept forever
+     * @param order the Order that has been retrieved to be served
+     * */
+    public synchronized void retrieveOrder(Order order){
+        if (isIn(order, OrderStatus.COOKED)){
+            cookedOrders.remove(order.orderNumber);
+            orders.remove(order.orderNumber);
+            moveTo(order, OrderStatus.RETRIEVED);
+        } else
+            throw new IllegalArgumentException("This order isn't ready to be picked up!");
+    }
+
+    /**
+     * Updates the status of an Order to completed. This should only be called when the customer has accepted the food
+     * brought to them. Otherwise the Order is retrieved but not completed.
+     * @param order the Order that was accepted by the customer
+     * */
+    public synchronized void confirmCompleted(Order order){
+        if (order.getStatus() == OrderStatus.COMPLETED || completedOrders.contains(order.orderNumber)){
+            throw new IllegalArgumentException("This order has already been completed!");
+        }
+        // the Order may still be sitting in one of the earlier stages. A remake has the number of the Order it
+        // replaces, so only this very Order is taken out
+        Map<Integer, Order> stage = stageOf(order.getStatus());
+        if (!stage.isEmpty()){
+            stage.remove(order.orderNumber, order);
+        }
+        orders.remove(order.orderNumber, order);
+        moveTo(order, OrderStatus.COMPLETED);
+        LatencyHistogram tickets = order.isRemake() ? metrics.remakeTickets : metrics.orderTickets;
+        tickets.record(order.stageSince - order.placedAt);
+        completedOrders.add(order);
+        ledger.completed(order);
+    }
+
+    /**
+     * Takes a completed Order off the tabs of its table and Server once the table has been given the bill for it.
+     * An Order is only billed once
+     * @param order the completed Order being paid for
+     * @return false if the Order had already been billed
+     * */
+    public synchronized boolean billOrder(Order order){
+        if (order.getStatus() != OrderStatus.COMPLETED){
+            throw new IllegalArgumentException("This order hasn't been completed yet!");
+        }
+        if (order.isBilled()){
+            return false;
+        }
+        order.setBilled();
+        completedOrders.markBilled(order.orderNumber);
+        ledger.billed(order);
+        return true;
+    }
+
+    /**
+     * returns the Order with the given id from the given list
+     * @param id the id of the Order to be returned
+     * @param list the list that the desired Order is in
+     * */
+    public synchronized Order getOrder(int id, String list){
+        OrderStatus wanted;
+        switch (list){
+            case "pending":
+                wanted = OrderStatus.PENDING;
+                break;
+            case "in progress":
+                wanted = OrderStatus.IN_PROGRESS;
+                break;
+            case "cooked":
+                wanted = OrderStatus.COOKED;
+                break;
+            case "completed":
+                wanted = OrderStatus.COMPLETED;
+                break;
+            default:
+                throw new IllegalArgumentException("That's not a list I can search!");
+        }
+        Order o = wanted == OrderStatus.COMPLETED ? completedOrders.get(id) : orders.get(id);
+        if (o != null && o.getStatus() == wanted)
+            return o;
+        throw new IllegalArgumentException("That list doesn't contain the specified order!");
+    }
+
+    /**
+     * returns the Order with the given id regardless of its stage, or null if no such Order has been placed
+     * @param id the id of the Order to be returned
+     * */
+    public synchronized Order getOrder(int id){
+        Order o = orders.get(id);
+        return o != null ? o : completedOrders.get(id);
+    }
+
+    /**
+     * returns every completed Order of the given table, newest first
+     * @param tableNumber the number of the table
+     * */
+    public synchronized List<Order> getCompletedOrders(int tableNumber){
+        return completedOrders.getTableOrders(tableNumber);
+    }
+
+    // returns the number of Orders currently in the given stage
+    public synchronized int countOrders(OrderStatus status){
+        if (status == OrderStatus.COMPLETED){
+            return completedOrders.size();
+        }
+        return stageOf(status).size();
+    }
+
+    /**
+     * Puts back an Order that was open before a crash, in the stage it was in, without logging it again
+     * @param order the Order rebuilt from the OrderLog
+     * @param status the stage it was in
+     * */
+    synchronized void restore(Order order, OrderStatus status){
+        if (orders.containsKey(order.orderNumber) || completedOrders.contains(order.orderNumber)){
+            throw new IllegalArgumentException("This order has already been placed!");
+        }
+        orders.put(order.orderNumber, order);
+        highestOrderNumber = Math.max(highestOrderNumber, order.orderNumber);
+        order.placedAt = System.nanoTime();
+        if (status == OrderStatus.PENDING || status == OrderStatus.IN_PROGRESS || status == OrderStatus.COOKED){
+            stageOf(status).put(order.orderNumber, order);
+        }
+        moveTo(order, status);
+    }
+
+    /**
+     * Starts writing every Order placed and every change of stage to the given log, and checkpointing the open Orders
+     * to it every few seconds
+     * @param orderLog the log, opened after any Orders in it were restored
+     * @param highestOrderNumber the highest order number in the log, including Orders that were completed
+     * */
+    synchronized void openLog(OrderLog orderLog, int highestOrderNumber){
+        this.log = orderLog;
+        this.highestOrderNumber = Math.max(this.highestOrderNumber, highestOrderNumber);
+        orderLog.startBackground(this::checkpoint);
+    }
+
+    // waits until every change made so far is on disk, if the Orders are logged
+    void awaitDurable(){
+        OrderLog orderLog;
+        synchronized (this){
+            orderLog = log;
+        }
+        if (orderLog != null){
+            orderLog.sync();
+        }
+    }
+
+    // writes the open Orders to the checkpoint of the log and removes the entries it contains from the log
+    void checkpoint(){
+        List<String> open = new ArrayList<>();
+        long through;
+        int highest;
+        OrderLog orderLog;
+        synchronized (this){
+            if (log == null){
+                return;
+            }
+            for (Order order : orders.values()){
+                if (order.getStatus() == OrderStatus.RETRIEVED){
+                    continue; // closed as far as the log is concerned, see OrderLog.Recovery
+                }
+                open.add("place | " + order.orderNumber + " | " + order.getTableNumber() + " | " + order.getServer()
+                        + " | " + OrderLog.describe(order));
+                if (order.getStatus() != OrderStatus.PENDING){
+                    open.add("status | " + order.orderNumber + " | " + order.getStatus());
+                }
+            }
+            through = log.getLastSequence();
+            highest = highestOrderNumber;
+            orderLog = log;
+        }
+        orderLog.checkpoint(open, through, highest);
+    }
+
+    // checkpoints and closes the log, if the Orders are logged, and deletes the files of the completed Order archive
+    void close(){
+        OrderLog orderLog;
+        synchronized (this){
+            orderLog = log;
+        }
+        if (orderLog != null){
+            checkpoint();
+            orderLog.close();
+            synchronized (this){
+                log = null;
+            }
+        }
+        synchronized (this){
+            completedOrders.close();
+        }
+    }
+
+    // returns the metrics this manager reports to
+    RestaurantMetrics getMetrics(){
+        return metrics;
+    }
+
+    // returns the tabs and sales totals of the completed Orders
+    SalesLedger getLedger(){
+        return ledger;
+    }
+
+    // changes the stage of an Order, recording how long it spent in the stage it leaves
+    private void moveTo(Order order, OrderStatus status){
+        long now = System.nanoTime();
+        metrics.moved(order.getStatus(), status, now - order.stageSince);
+        order.stageSince = now;
+        order.setStatus(status);
+        if (log != null && status != OrderStatus.PENDING){
+            // placing an Order is logged with its foods instead
+            log.moved(order, status);
+        }
+    }
+
+    // true if the given Order is the one this manager has indexed under its number and it is in the given stage
+    private boolean isIn(Order order, OrderStatus status){
+        return order.getStatus() == status && orders.get(order.orderNumber) == order;
+    }
+
+    // returns the map holding Orders of the given stage. NEW, RETRIEVED and COMPLETED Orders are not held in any stage
+    private Map<Integer, Order> stageOf(OrderStatus status){
+        switch (status){
+            case PENDING:
+                return pendingOrders;
+            case IN_PROGRESS:
+                return ordersInProgress;
+            case COOKED:
+                return cookedOrders;
+            default:
+                return Collections.emptyMap();
+        }
+    }
+}
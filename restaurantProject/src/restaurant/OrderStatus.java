@@ -0,0 +1,15 @@
+package restaurant;
+
+/**
+ * The stages an Order moves through on its way from the server to the customer. Every Order carries exactly one of
+ * these so OrderManager can tell where an Order is without searching its lists
+ */
+public enum OrderStatus {
+    NEW,         // created by a server, not placed yet
+    PENDING,     // server placed order, cooking not started
+    IN_PROGRESS, // cook confirmed order, cooking in progress
+    COOKED,      // order has been cooked, waiting for server pick up
+    RETRIEVED,   // order has been picked up but not accepted by the customer
+    COMPLETED,   // order has been delivered and accepted by customer
+    CANCELLED    // order was taken back before cooking started
+}
@@ -0,0 +1,236 @@
+package restaurant;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * The ReorderEngine class. Decides what to order from the supplier and writes the purchase orders to requests.txt.
+ *
+ * The InventoryManager tells the engine about an ingredient when its stock drops below its minimum, and when a
+ * shipment of it arrives, instead of the whole inventory being checked after every change. Requests are collected
+ * and written as one purchase order per flush, with the ingredients furthest below their minimum first. Each
+ * ingredient is ordered back up to TARGET_MULTIPLE times its minimum, less whatever is already on order
+ *
+ * requests.txt holds every purchase order ever written, each one in the format
+ * # purchase order n
+ * ingredient x quantity
+ * ...
+ * When a shipment arrives for an ingredient on order, the line "# received ingredient x quantity" is added with the
+ * part of the shipment that counts against it. The amounts on order are worked out again from the file when the
+ * program starts, so nothing is ordered twice after a restart
+ * */
+class ReorderEngine {
+    static final int TARGET_MULTIPLE = 2; // an ingredient is ordered back up to this many times its minimum
+    private static final String PURCHASE_ORDER = "# purchase order ";
+    private static final String RECEIVED = "# received ";
+
+    private final String requestFile;
+    private final Map<String, Integer> inventory;
+    private final Map<String, Integer> minimums;
+    private final LatencyHistogram writeTimes;
+
+    private final Set<String> shortages = new HashSet<>(); // ingredients below their minimum
+    private final Map<String, Integer> onOrder = new HashMap<>(); // amounts requested and not delivered yet
+    private final StringBuilder receipts = new StringBuilder(); // received lines not written to the file yet
+    private boolean changed; // true if a shortage was found since the last purchase order
+    private int purchaseOrders; // the number of the last purchase order written
+
+    /**
+     * Creates an engine that adds to the given file, taking what is still on order from the purchase orders and
+     * shipments already in it
+     * @param requestFile the file the purchase orders are written to
+     * @param inventory the stock on hand, read but never changed by the engine
+     * @param minimums the minimum of each ingredient, read but never changed by the engine
+     * @param writeTimes where the time taken to write each purchase order is recorded
+     * */
+    ReorderEngine(String requestFile, Map<String, Integer> inventory, Map<String, Integer> minimums,
+                  LatencyHistogram writeTimes) throws IOException{
+        this.requestFile = requestFile;
+        this.inventory = inventory;
+        this.minimums = minimums;
+        this.writeTimes = writeTimes;
+        if (new File(requestFile).exists()){
+            load();
+        } else {
+            new FileWriter(requestFile).close();
+        }
+    }
+
+    // adds up what was ordered and takes off what was received, in the order it happened
+    private void load() throws IOException{
+        try (BufferedReader reader = new BufferedReader(new FileReader(requestFile))){
+            String line;
+            while ((line = reader.readLine()) != null){
+                line = line.trim();
+                try {
+                    if (line.startsWith(PURCHASE_ORDER)){
+                        purchaseOrders = Math.max(purchaseOrders,
+                                Integer.parseInt(line.substring(PURCHASE_ORDER.length()).trim()));
+                    } else if (line.startsWith(RECEIVED)){
+                        int x = line.lastIndexOf(" x ");
+                        cover(line.substring(RECEIVED.length(), x).trim(),
+                                Integer.parseInt(line.substring(x + 3).trim()));
+                    } else if (!line.isEmpty() && !line.startsWith("#")){
+                        int x = line.lastIndexOf(" x ");
+                        onOrder.merge(line.substring(0, x).trim(), Integer.parseInt(line.substring(x + 3).trim()),
+                                Integer::sum);
+                    }
+                } catch (NumberFormatException | StringIndexOutOfBoundsException e){
+                    // a partially written last line, or one edited by hand, orders nothing
+                }
+            }
+        }
+    }
+
+    /**
+     * Notes the given ingredient as short if its stock is below its minimum. Called when its stock has dropped below
+     * the minimum, and when it first appears in the inventory
+     * @param ingredient the ingredient to check
+     * */
+    synchronized void check(String ingredient){
+        if (isShort(ingredient) && shortages.add(ingredient)){
+            changed = true;
+        }
+    }
+
+    // checks every given ingredient, as when the inventory is first loaded
+    synchronized void checkAll(Collection<String> ingredients){
+        for (String ingredient : ingredients){
+            check(ingredient);
+        }
+    }
+
+    /**
+     * Notes that a shipment of an ingredient arrived, so less of it is on order. An ingredient that is back at its
+     * minimum is no longer short, and one that is still short may be ordered again
+     * @param ingredient the ingredient that arrived
+     * @param amount the amount that arrived
+     * */
+    synchronized void received(String ingredient, int amount){
+        Integer ordered = onOrder.get(ingredient);
+        if (ordered != null){
+            cover(ingredient, amount);
+            receipts.append(RECEIVED).append(ingredient).append(" x ").append(Math.min(ordered, amount))
+                    .append(System.lineSeparator());
+        }
+        if (!isShort(ingredient)){
+            shortages.remove(ingredient);
+        } else if (shortages.add(ingredient) || ordered != null){
+            changed = true;
+        }
+    }
+
+    /**
+     * Writes one purchase order for every short ingredient that isn't fully on order yet, the ones furthest below
+     * their minimum first. Nothing is written if nothing needs ordering
+     * @return the amount ordered of each ingredient, empty if nothing was written
+     * */
+    synchronized Map<String, Integer> flush(){
+        Map<String, Integer> ordered = new LinkedHashMap<>();
+        if (!changed){
+            write(ordered);
+            return ordered;
+        }
+        changed = false;
+        PriorityQueue<Request> byDeficit = new PriorityQueue<>((a, b) -> Integer.compare(b.deficit, a.deficit));
+        for (String ingredient : shortages){
+            int stock = stockOf(ingredient);
+            int quantity = TARGET_MULTIPLE * minimumOf(ingredient) - stock - onOrder.getOrDefault(ingredient, 0);
+            if (quantity > 0){
+                byDeficit.add(new Request(ingredient, quantity, minimumOf(ingredient) - stock));
+            }
+        }
+        while (!byDeficit.isEmpty()){
+            Request request = byDeficit.poll();
+            onOrder.merge(request.ingredient, request.quantity, Integer::sum);
+            ordered.put(request.ingredient, request.quantity);
+        }
+        write(ordered);
+        return ordered;
+    }
+
+    // appends the waiting received lines and, if anything was ordered, the purchase order to requests.txt
+    private void write(Map<String, Integer> ordered){
+        if (receipts.length() == 0 && ordered.isEmpty()){
+            return;
+        }
+        StringBuilder text = new StringBuilder(receipts);
+        if (!ordered.isEmpty()){
+            text.append(PURCHASE_ORDER).append(purchaseOrders + 1).append(System.lineSeparator());
+            for (Map.Entry<String, Integer> entry : ordered.entrySet()){
+                text.append(entry.getKey()).append(" x ").append(entry.getValue()).append(System.lineSeparator());
+            }
+        }
+        long start = System.nanoTime();
+        try (Writer out = new BufferedWriter(new FileWriter(requestFile, true))){
+            out.write(text.toString());
+        } catch (IOException e){
+            e.printStackTrace();
+            return;
+        }
+        writeTimes.record(System.nanoTime() - start);
+        receipts.setLength(0);
+        if (!ordered.isEmpty()){
+            purchaseOrders++;
+        }
+    }
+
+    // returns the short ingredients, the ones furthest below their minimum first
+    synchronized List<String> getShortages(){
+        Map<String, Integer> deficits = new HashMap<>();
+        for (String ingredient : shortages){
+            deficits.put(ingredient, minimumOf(ingredient) - stockOf(ingredient));
+        }
+        List<String> sorted = new ArrayList<>(shortages);
+        sorted.sort((a, b) -> Integer.compare(deficits.get(b), deficits.get(a)));
+        return sorted;
+    }
+
+    // returns the amount requested from the supplier that hasn't arrived yet
+    synchronized int getOnOrder(String ingredient){
+        return onOrder.getOrDefault(ingredient, 0);
+    }
+
+    // returns every amount requested from the supplier that hasn't arrived yet
+    synchronized Map<String, Integer> getOnOrder(){
+        return new LinkedHashMap<>(onOrder);
+    }
+
+    // takes a shipment off what is on order of an ingredient, an entry is only cleared once it is fully covered
+    private void cover(String ingredient, int amount){
+        Integer ordered = onOrder.get(ingredient);
+        if (ordered == null){
+            return;
+        }
+        if (ordered > amount){
+            onOrder.put(ingredient, ordered - amount);
+        } else {
+            onOrder.remove(ingredient);
+        }
+    }
+
+    private boolean isShort(String ingredient){
+        return stockOf(ingredient) < minimumOf(ingredient);
+    }
+
+    private int stockOf(String ingredient){
+        return inventory.getOrDefault(ingredient, 0);
+    }
+
+    private int minimumOf(String ingredient){
+        return minimums.getOrDefault(ingredient, 0);
+    }
+
+    // one line of a purchase order
+    private static class Request {
+        final String ingredient;
+        final int quantity;
+        final int deficit; // how far the ingredient was below its minimum
+
+        Request(String ingredient, int quantity, int deficit){
+            this.ingredient = ingredient;
+            this.quantity = quantity;
+            this.deficit = deficit;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package restaurant;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * The ReplayHarness class. Replays an events file, such as one written by EventLogGenerator, into a new Restaurant
+ * and reports how many events per second it handled and how long each type of event took.
+ *
+ * The menu, inventory and minimums are copied to a temporary folder first, so a load test never changes the real
+ * files, and the folder is deleted afterwards. The servers and cooks are created from the names used in the events
+ * file. The event log lines are formatted as usual but not written to the console while the replay runs. With --log
+ * binary they are written to the --logFile instead, events.bin in the working folder by default, and with --log off
+ * not at all, see EventLog. With --mode actors, every worker handles their own events as an actor, see ActorEngine,
+ * instead of the events being spread across threads by order number. With --orderLog on or sync, the Orders are
+ * written to an OrderLog as they change, to measure what that costs
+ *
+ * Usage: ReplayHarness --events file [--data folder] [--threads n] [--mode actors] [--orderLog on|sync]
+ *                      [--log text|binary|off] [--logFile file]
+ * */
+public class ReplayHarness {
+    private static final String[] DATA_FILES = {"menu.txt", "inventory.txt", "minimums.txt", "inventory.journal"};
+
+    public static void main(String[] args) throws IOException{
+        Map<String, String> options = EventLogGenerator.parseOptions(args);
+        String events = options.get("events");
+        if (events == null){
+            throw new IllegalArgumentException("Usage: ReplayHarness --events file [--data folder] [--threads n] "
+                    + "[--mode actors] [--orderLog on|sync] [--log text|binary|off] [--logFile file]");
+        }
+        int threads = Integer.parseInt(options.getOrDefault("threads", "1"));
+        boolean actors = options.getOrDefault("mode", "").equals("actors");
+
+        Path source = Paths.get(options.getOrDefault("data",
+                System.getProperty("restaurant.data", Restaurant.DEFAULT_DATA_FOLDER)));
+        Path copy = Files.createTempDirectory("restaurant-replay");
+        try {
+            for (String file : DATA_FILES){
+                if (Files.exists(source.resolve(file))){
+                    Files.copy(source.resolve(file), copy.resolve(file));
+                }
+            }
+            replay(copy, events, threads, actors, options);
+        } finally {
+            deleteData(copy);
+        }
+    }
+
+    // replays the events into a Restaurant on the given copy of the data folder and prints what it measured
+    private static void replay(Path copy, String events, int threads, boolean actors, Map<String, String> options)
+            throws IOException{
+        List<Server> servers = new ArrayList<>();
+        List<Cook> cooks = new ArrayList<>();
+        findWorkers(events, servers, cooks);
+        Restaurant restaurant = new Restaurant(copy.toString(), servers, cooks);
+        if (options.containsKey("orderLog")){
+            restaurant.openOrderLog(options.get("orderLog").equals("sync"));
+        }
+
+        PrintStream console = System.out;
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        String log = options.getOrDefault("log", "text");
+        Path logFile = Paths.get(options.getOrDefault("logFile", "events.bin")).toAbsolutePath();
+        if (log.equals("binary")){
+            restaurant.setEventLog(EventLog.toFile(logFile.toString()));
+        } else {
+            restaurant.setEventLog(log.equals("off") ? null : EventLog.toText(discard));
+        }
+        System.setOut(discard);
+        Map<String, LatencyHistogram> latencies = new TreeMap<>();
+        LatencyHistogram parsing = new LatencyHistogram();
+        long count = 0;
+        long start = System.nanoTime();
+        try {
+            if (actors){
+                restaurant.processEventsWithActors(events, threads);
+                count = countLines(events);
+            } else if (threads > 1){
+                // per-event times aren't available when the events are spread across threads
+                restaurant.processEventsInParallel(events, threads);
+                count = countLines(events);
+            } else {
+                count = replay(restaurant, events, latencies, parsing);
+            }
+        } finally {
+            System.setOut(console);
+            restaurant.close();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("Replayed %d events in %.1f ms on %d thread(s)%s: %.0f events/s%n", count, elapsed / 1e6,
+                threads, actors ? " with actors" : "", count / (elapsed / 1e9));
+        if (parsing.getCount() > 0){
+            System.out.println("parsing              " + parsing);
+        }
+        for (Map.Entry<String, LatencyHistogram> entry : latencies.entrySet()){
+            System.out.printf("%-20s %s%n", entry.getKey(), entry.getValue());
+        }
+        System.out.println();
+        System.out.print(restaurant.getMetrics().getReport());
+        System.out.println("sales " + restaurant.getLedger().getTotalSales());
+        if (log.equals("binary")){
+            System.out.println("event log written to " + logFile);
+        }
+    }
+
+    // replays the file one event at a time, timing the parsing and the processing of each event
+    private static long replay(Restaurant restaurant, String file, Map<String, LatencyHistogram> latencies,
+                               LatencyHistogram parsing) throws IOException{
+        long count = 0;
+        try (TextScanner scanner = new TextScanner(file, restaurant.getNames())){
+            while (scanner.nextLine()){
+                long before = System.nanoTime();
+                EventRecord event = EventRecord.parse(scanner);
+                long parsed = System.nanoTime();
+                restaurant.processEvent(event, -1);
+                long done = System.nanoTime();
+
+                parsing.record(parsed - before);
+                latencies.computeIfAbsent(event.eventType, k -> new LatencyHistogram()).record(done - parsed);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // creates a Server for every name that takes or delivers an Order, and a Cook for every name that cooks one
+    private static void findWorkers(String file, List<Server> servers, List<Cook> cooks) throws IOException{
+        Set<String> serverNames = new LinkedHashSet<>();
+        Set<String> cookNames = new LinkedHashSet<>();
+        try (TextScanner scanner = new TextScanner(file, new TextScanner.NameTable())){
+            while (scanner.nextLine()){
+                EventRecord event = EventRecord.parse(scanner);
+                if (event.eventType.startsWith("cook")){
+                    cookNames.add(event.workerName);
+                } else if (!event.workerName.isEmpty()){
+                    serverNames.add(event.workerName);
+                }
+            }
+        }
+        for (String name : serverNames){
+            servers.add(new Server(name));
+        }
+        for (String name : cookNames){
+            cooks.add(new Cook(name));
+        }
+    }
+
+    private static void deleteData(Path folder) throws IOException{
+        try (Stream<Path> files = Files.list(folder)){
+            for (Path file : (Iterable<Path>) files::iterator){
+                Files.delete(file);
+            }
+        }
+        Files.delete(folder);
+    }
+
+    private static long countLines(String file) throws IOException{
+        long count = 0;
+        try (TextScanner scanner = new TextScanner(file, new TextScanner.NameTable())){
+            while (scanner.nextLine()){
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,605 @@
+package restaurant;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// The main class of the project that controls all other classes
+public class Restaurant {
+    private OrderManager orderManager;
+    private Kitchen kitchen;
+    private List<Server> servers;
+    private Map<String, Food> menu;
+    private TextScanner.NameTable names = new TextScanner.NameTable();
+    // numbers the ingredients of every food on the menu
+    private IngredientIndex ingredientIndex = new IngredientIndex();
+    private RestaurantMetrics metrics = new RestaurantMetrics();
+    private MenuAvailability availability; // how many portions of each dish can be made right now
+    private final AtomicInteger orderNumbers = new AtomicInteger(1); // the number the next Order placed here gets
+    // the numbers of Orders, and remakes, that were turned away. Later events for them are skipped
+    private final Set<Integer> turnedAway = ConcurrentHashMap.newKeySet();
+    private final String dataFolder;
+    private boolean syncOrderLog; // true if every event waits for its changes to the Orders to be on disk
+    private volatile EventLog eventLog; // where a line is written for every event, or null to write nothing
+
+    // the folder holding the menu, events and inventory files. Can be changed with -Drestaurant.data=<folder>
+    static final String DEFAULT_DATA_FOLDER = "phase1/restaurantProject/src";
+    static final String DATA_FOLDER = System.getProperty("restaurant.data", DEFAULT_DATA_FOLDER);
+
+    private static final String EVENT_FILE = DATA_FOLDER + "/events.txt";
+
+    public Restaurant() {
+        this(new ArrayList<>(), new ArrayList<>());
+    }
+
+    public Restaurant(List<Server> servers, List<Cook> cooks){
+        this(DATA_FOLDER, servers, cooks);
+    }
+
+    /**
+     * Creates a Restaurant that keeps its menu, inventory and other files in the given data folder. Restaurants with
+     * different data folders share nothing, not even the numbering of their Orders, so several can run side by side
+     * @param dataFolder the folder holding menu.txt, inventory.txt and minimums.txt
+     * @param servers the Servers of the Restaurant
+     * @param cooks the Cooks of the Restaurant
+     */
+    public Restaurant(String dataFolder, List<Server> servers, List<Cook> cooks){
+        this.dataFolder = dataFolder;
+        this.servers = servers;
+        DataSnapshot snapshot = loadSnapshot();
+        this.orderManager = new OrderManager(metrics);
+        this.kitchen = new Kitchen(orderManager, cooks, snapshot, dataFolder);
+        this.menu = new HashMap<>();
+
+        constructMenu(dataFolder + "/menu.txt", snapshot);
+        this.availability = new MenuAvailability(menu.values());
+        kitchen.inventoryManager.trackAvailability(availability);
+
+        // the Orders are logged if -Drestaurant.orders.log=on, or =sync to wait for the disk after every event
+        String orderLog = System.getProperty("restaurant.orders.log");
+        if (orderLog != null) {
+            openOrderLog(orderLog.equals("sync"));
+        }
+
+        // a line is printed for every event unless -Drestaurant.log=binary writes them to events.bin instead, for
+        // EventLogDecoder to read, or =off
+        String log = System.getProperty("restaurant.log", "console");
+        try {
+            if (log.equals("binary")) {
+                setEventLog(EventLog.toFile(dataFolder + "/events.bin"));
+            } else if (!log.equals("off")) {
+                setEventLog(EventLog.toText(System.out));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Changes where the lines for the events are written, closing the old EventLog once its lines are written
+     * @param log the new log, or null to write nothing
+     */
+    void setEventLog(EventLog log) {
+        EventLog old = eventLog;
+        eventLog = log;
+        if (old != null) {
+            old.close();
+        }
+    }
+
+    /**
+     * Rebuilds the Orders that were open when orders.log was last written, then logs every Order placed and every
+     * change of stage to it from now on. See OrderLog
+     * @param sync if true, every event waits until its changes are on disk. Otherwise they are written within a few
+     *             milliseconds
+     */
+    void openOrderLog(boolean sync) {
+        long start = System.nanoTime();
+        String logFile = dataFolder + "/orders.log";
+        String checkpointFile = dataFolder + "/orders.checkpoint";
+        try {
+            OrderLog.Recovery recovery = OrderLog.recover(logFile, checkpointFile);
+            for (Map.Entry<Integer, OrderLog.OpenOrder> entry : recovery.openOrders.entrySet()) {
+                OrderLog.OpenOrder open = entry.getValue();
+                Order order = restoreOrder(entry.getKey(), open);
+                orderManager.restore(order, open.status);
+                if (open.status == OrderStatus.PENDING || open.status == OrderStatus.IN_PROGRESS) {
+                    try {
+                        kitchen.admit(order);
+                    } catch (IllegalArgumentException e) {
+                        // it was taken before a restart, so it is still cooked if the stock comes in
+                    }
+                }
+                if (open.status == OrderStatus.PENDING) {
+                    kitchen.schedule(order);
+                }
+            }
+            orderNumbers.set(Math.max(orderNumbers.get(), recovery.highestOrderNumber + 1));
+            OrderLog log = new OrderLog(logFile, checkpointFile, recovery.lastSequence, metrics.orderLogCommits);
+            // the stock an entry of the log depends on is only in the inventory journal, which flushes on its own
+            // schedule, so every commit of the log writes and forces the journal first
+            kitchen.inventoryManager.setDurable(true);
+            log.writeFirst(kitchen.inventoryManager::flushJournal);
+            orderManager.openLog(log, recovery.highestOrderNumber);
+            syncOrderLog = sync;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        metrics.recoveries.record(System.nanoTime() - start);
+    }
+
+    // rebuilds an Order from the foods written to the order log, which are in the format of a takeOrder event
+    private Order restoreOrder(int orderNumber, OrderLog.OpenOrder open) {
+        if (open.foods.isEmpty()) {
+            Order order = new Order(open.tableNumber, orderNumber);
+            order.setServer(open.server);
+            return order;
+        }
+        TextScanner scanner = new TextScanner("orders.log", open.server + " | takeOrder |  | " + open.tableNumber
+                + " ; " + open.foods, names);
+        try {
+            scanner.nextLine();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return buildOrder(EventRecord.parse(scanner), orderNumber);
+    }
+
+    // loads the menu and minimums from snapshot.bin, rebuilding it if the text files changed, and the inventory from
+    // inventory.txt. Returns null if it can't be loaded, and the text files are parsed instead
+    private DataSnapshot loadSnapshot() {
+        try {
+            return DataSnapshot.load(dataFolder, names);
+        } catch (IOException | IllegalArgumentException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    //Generates the Menu from the menu.txt file, or from the snapshot if there is one
+    private void constructMenu(String file, DataSnapshot snapshot) {
+        try {
+            //Create the menu file if it does not exist
+            if (!(new File(file).exists())) {
+                new PrintWriter(new BufferedWriter(new FileWriter(file)));}
+
+            if (snapshot != null) {
+                menu.putAll(snapshot.getMenu(ingredientIndex));
+            } else {
+                menu.putAll(readMenu(file, names, ingredientIndex));
+            }
+
+            Set<String> ingredientTypes = new HashSet<>();
+            for (Food food : menu.values()){
+                ingredientTypes.addAll(food.getIngredients().keySet());
+            }
+            kitchen.inventoryManager.checkIntegrity(ingredientTypes);
+            // an Order can only add or take out an ingredient the restaurant has heard of
+            for (String ingredient : kitchen.inventoryManager.getIngredientNames()) {
+                ingredientIndex.idOf(ingredient);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+    }
+
+    /**
+     * Reads every food from a menu file, in the order they appear. Badly formed foods are reported and left out
+     * @param file the menu file, in the format price | name | ingredients
+     * @param names the table the food and ingredient names are looked up in
+     * @param index the index that numbers the ingredients
+     */
+    static Map<String, Food> readMenu(String file, TextScanner.NameTable names, IngredientIndex index)
+            throws IOException {
+        Map<String, Food> foods = new LinkedHashMap<>();
+        try (TextScanner scanner = new TextScanner(file, names)) {
+            TextScanner.Field line = scanner.new Field();
+            TextScanner.Field field = scanner.new Field();
+            TextScanner.Field ingredient = scanner.new Field();
+            TextScanner.Field amount = scanner.new Field();
+            TextScanner.Field name = scanner.new Field();
+
+            while (scanner.nextLine()){
+                try {
+                    //The format is price | name | ingredients
+                    scanner.line(line);
+                    int fields = line.count((byte) '|');
+                    if (fields != 3){
+                        throw scanner.fail("expected 3 fields separated by '|' but found " + fields);
+                    }
+                    line.next((byte) '|', field);
+                    float price = field.toFloat("a price");
+                    line.next((byte) '|', field);
+                    String foodName = field.toName();
+                    line.next((byte) '|', field);
+
+                    //Each ingredient is separated by a comma, with an "x" between the amount and the name
+                    Map<String, Integer> allIngredients = new HashMap<>();
+                    while (field.next((byte) ',', ingredient)){
+                        if (!ingredient.splitAround((byte) 'x', amount, name) || name.isEmpty()){
+                            throw scanner.fail("expected \"amount x ingredient\" but found \"" + ingredient + "\"");
+                        }
+                        allIngredients.put(name.toName(), amount.toInt("an amount"));
+                    }
+
+                    foods.put(foodName, new Food(foodName, price, allIngredients, index));
+                } catch (IllegalArgumentException e) {
+                    // a badly formed food is left off the menu
+                    System.out.println(e.getMessage());
+                }
+            }
+        }
+        return foods;
+    }
+
+    //Iterates through every line in the events.txt file
+    void processEvents(String file){
+        try (TextScanner scanner = new TextScanner(file, names)) {
+            while (scanner.nextLine()){
+                EventRecord event;
+                try {
+                    event = EventRecord.parse(scanner);
+                } catch (IllegalArgumentException e) {
+                    // a badly formed event is skipped
+                    System.out.println(e.getMessage());
+                    continue;
+                }
+                processEvent(event, -1);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Iterates through every line in the events file using several threads. Events are spread across the threads by
+     * order number, see EventEngine
+     * @param file the events file
+     * @param threads the number of threads that process events
+     */
+    void processEventsInParallel(String file, int threads){
+        try {
+            new EventEngine(this, threads).run(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Iterates through every line in the events file with every Server and Cook handling their own events as an
+     * actor, see ActorEngine
+     * @param file the events file
+     * @param threads the number of threads the actors share
+     */
+    void processEventsWithActors(String file, int threads){
+        try {
+            new ActorEngine(this, threads).run(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    //Takes one event line and processes it
+    void processEvent(String event) {
+        TextScanner scanner = new TextScanner("event", event, names);
+        try {
+            if (scanner.nextLine()) {
+                processEvent(EventRecord.parse(scanner), -1);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // returns the table of food, ingredient and worker names shared by everything that reads this Restaurant's files
+    TextScanner.NameTable getNames() {
+        return names;
+    }
+
+    // returns the metrics of this Restaurant
+    RestaurantMetrics getMetrics() {
+        return metrics;
+    }
+
+    // returns the Kitchen of this Restaurant
+    Kitchen getKitchen() {
+        return kitchen;
+    }
+
+    // returns the foods on the menu by name
+    Map<String, Food> getMenu() {
+        return Collections.unmodifiableMap(menu);
+    }
+
+    /**
+     * Returns how many portions of a dish can be made from the stock that isn't set aside for an Order. The count is
+     * kept up to date as the stock changes, so asking costs the same however large the menu is
+     * @param dish the name of a dish on the menu
+     */
+    int getPortionsAvailable(String dish) {
+        return availability.getPortions(dish);
+    }
+
+    // returns every dish that can be made right now and how many portions of it
+    Map<String, Integer> getDishesAvailable() {
+        return availability.getAvailableDishes();
+    }
+
+    // returns the tabs and sales totals of this Restaurant
+    SalesLedger getLedger() {
+        return orderManager.getLedger();
+    }
+
+    // Takes the number the next Order placed in this Restaurant gets, so an Order can be numbered before it is created
+    int reserveOrderNumber() {
+        return orderNumbers.getAndIncrement();
+    }
+
+    /**
+     * Processes one event. The time it takes is recorded in the metrics under its event type, unless it fails
+     * @param event the event read from the events file
+     * @param newOrderNumber the number a takeOrder event gives its Order, as returned by reserveOrderNumber. If it is
+     *                       -1, the next number is taken
+     * @return the number of the Order the event placed, either a takeOrder's Order or the remake of a rejected Order,
+     *         or that a cookConfirmOrder without an order number gave the Cook, or -1 if there is none
+     */
+    int processEvent(EventRecord event, int newOrderNumber) {
+        long start = System.nanoTime();
+        int placed = -1;
+        String workerName = event.workerName;
+        String eventType = event.eventType;
+        int orderId = event.orderId;
+        String notes = event.notes;
+
+        if (orderId != -1 && turnedAway.contains(orderId)){
+            // the Order was never placed, so there is nothing for the event to do
+            if (eventLog != null) {
+                eventLog.skipped(eventType, orderId);
+            }
+            return -1;
+        }
+        switch (eventType){
+            case "takeOrder":
+                if (newOrderNumber == -1){
+                    newOrderNumber = reserveOrderNumber();
+                }
+                Server orderServer = getServer(workerName);
+
+                // an Order that can't be made, or asks for an ingredient the restaurant doesn't have, is turned away
+                // here, before it reaches the kitchen, and the events after it go on as usual
+                Order myOrder;
+                try {
+                    myOrder = buildOrder(event, newOrderNumber);
+                    kitchen.admit(myOrder);
+                } catch (IllegalArgumentException e) {
+                    turnedAway.add(newOrderNumber);
+                    if (eventLog != null) {
+                        eventLog.turnedAway(newOrderNumber, e.getMessage());
+                    }
+                    break;
+                }
+                try {
+                    orderManager.placeOrder(myOrder);
+                } catch (IllegalArgumentException e) {
+                    kitchen.release(myOrder);
+                    throw e;
+                }
+                kitchen.schedule(myOrder);
+                if (eventLog != null) {
+                    eventLog.placed(myOrder, orderServer.getID());
+                }
+                placed = myOrder.orderNumber;
+                break;
+            case "cookConfirmOrder":
+                Cook confirmingCook = kitchen.getCook(workerName);
+                Order toConfirm;
+                if (orderId == -1) {
+                    // the Cook didn't pick an Order, so the scheduler picks the one they should make next
+                    toConfirm = kitchen.nextOrder(confirmingCook);
+                    if (toConfirm == null) {
+                        throw new IllegalArgumentException("There is no order waiting to be cooked!");
+                    }
+                    placed = toConfirm.orderNumber;
+                } else {
+                    toConfirm = orderManager.getOrder(orderId, "pending");
+                }
+
+                kitchen.acceptOrder(toConfirm, confirmingCook);
+                if (eventLog != null) {
+                    eventLog.confirmed(confirmingCook.getID(), toConfirm.orderNumber);
+                }
+                break;
+            case "cookFinishedOrder":
+                Order toFill = orderManager.getOrder(orderId, "in progress");
+                Cook cookingCook = kitchen.getCook(workerName);
+
+                kitchen.cook(toFill, cookingCook);
+                if (eventLog != null) {
+                    eventLog.cooked(cookingCook.getID(), toFill.orderNumber);
+                }
+                break;
+            case "cancelOrder":
+                Order toCancel = orderManager.getOrder(orderId, "pending");
+                Server cancellingServer = getServer(workerName);
+
+                kitchen.cancel(toCancel);
+                if (eventLog != null) {
+                    eventLog.cancelled(cancellingServer.getID(), toCancel.orderNumber, notes);
+                }
+                break;
+            case "tableReceivedOrder":
+                Order toReceive = orderManager.getOrder(orderId, "cooked");
+                Server receivingServer = getServer(workerName);
+
+                orderManager.retrieveOrder(toReceive);
+                orderManager.confirmCompleted(toReceive);
+                if (eventLog != null) {
+                    eventLog.received(receivingServer.getID(), toReceive.orderNumber, toReceive.getTableNumber());
+                }
+                break;
+            case "tableRejectedOrder":
+                Order toReject = orderManager.getOrder(orderId, "cooked");
+                Server rejectingServer = getServer(workerName);
+
+                orderManager.retrieveOrder(toReject);
+                if (eventLog != null) {
+                    eventLog.rejected(rejectingServer.getID(), toReject.orderNumber, toReject.getTableNumber(), notes);
+                }
+                if (remake(toReject)) {
+                    placed = toReject.orderNumber;
+                }
+                break;
+            case "tableRequestedBill":
+                Order toPay = orderManager.getOrder(orderId, "completed");
+                Server billServer = getServer(workerName);
+                orderManager.billOrder(toPay);
+
+                if (eventLog != null) {
+                    eventLog.billed(billServer.getID(), toPay.getPriceCents(), toPay.getTableNumber());
+                }
+                break;
+            case "receiveShipment":
+                Map<String, Integer> inventoryShipment = event.shipment;
+                kitchen.inventoryManager.receiveShipment(inventoryShipment);
+                for (String ingredient : inventoryShipment.keySet()) {
+                    ingredientIndex.idOf(ingredient);
+                }
+
+                if (eventLog != null) {
+                    eventLog.shipment(inventoryShipment);
+                }
+                break;
+            default:
+                if (eventLog != null) {
+                    eventLog.unrecognized(eventType);
+                }
+                return -1;
+        }
+        if (syncOrderLog) {
+            orderManager.awaitDurable();
+            // an event that logged no Order, like a shipment, may still have changed the stock
+            kitchen.inventoryManager.flushJournal();
+        }
+        metrics.eventTimes(eventType).record(System.nanoTime() - start);
+        return placed;
+    }
+
+    /**
+     * Sends a rejected Order back to the kitchen as a remake, which every Cook makes before any other pending Order.
+     * The remake keeps the number of the rejected Order, and the ingredients it uses are counted as waste. If there
+     * isn't enough stock, the table isn't given one
+     * @param rejected the Order the table sent back
+     * @return true if the remake was placed, false if it was turned away
+     */
+    private boolean remake(Order rejected) {
+        Order remake = rejected.remake();
+        try {
+            kitchen.admit(remake);
+        } catch (IllegalArgumentException e) {
+            turnedAway.add(rejected.orderNumber);
+            if (eventLog != null) {
+                eventLog.remakeFailed(rejected.orderNumber, e.getMessage());
+            }
+            return false;
+        }
+        try {
+            orderManager.placeOrder(remake);
+        } catch (IllegalArgumentException e) {
+            kitchen.release(remake);
+            throw e;
+        }
+        kitchen.scheduleRemake(remake);
+        if (eventLog != null) {
+            eventLog.remake(remake.orderNumber, remake.getAttempt());
+        }
+        return true;
+    }
+
+    //Builds a valid Order object from the foods of a takeOrder event. Throws IllegalArgumentException if a food is
+    //changed with an ingredient that isn't on the menu or in the inventory
+    Order buildOrder(EventRecord event, int orderNumber){
+        Order myOrder = new Order(event.tableNumber, orderNumber);
+        myOrder.setServer(event.workerName);
+
+        for (EventRecord.OrderItem item : event.items){
+            Food food = menu.get(item.foodName);
+            if (food != null){
+                // every unit shares the menu's Food, only the changes are kept with the Order
+                myOrder.addLine(OrderLine.withChanges(food, item.amount, item.additions, item.removals));
+            }
+        }
+
+        return myOrder;
+    }
+
+    /**
+     * Makes the metrics readable over JMX as restaurant:type=Metrics. If the restaurant.metrics.dump property is set,
+     * they are also written to metrics.txt every that many seconds
+     */
+    void exportMetrics() {
+        exportMetrics("restaurant:type=Metrics");
+    }
+
+    /**
+     * Makes the metrics readable over JMX under the given name, and dumps them to metrics.txt as above
+     * @param objectName the JMX object name, which must differ between Restaurants in the same process
+     */
+    void exportMetrics(String objectName) {
+        metrics.register(objectName);
+        String seconds = System.getProperty("restaurant.metrics.dump");
+        if (seconds != null) {
+            metrics.startDump(dataFolder + "/metrics.txt", Long.parseLong(seconds));
+        }
+    }
+
+    // writes any journaled inventory changes back to inventory.txt, stops the background threads, deletes the
+    // completed Order archive and waits for the last event lines to be written
+    void close() {
+        kitchen.inventoryManager.close();
+        orderManager.close();
+        metrics.close();
+        setEventLog(null);
+    }
+
+    //Gets the Server object from the list based on the serverID
+    private Server getServer(String serverID){
+        for (Server server : servers){
+            if (serverID.equals(server.getID())){
+                return server;
+            }
+        }
+        throw new IllegalArgumentException("Server not found");
+    }
+
+    //Main loop that will read the events and do them
+    public static void main(String[] args) {
+        List<Server> servers = new ArrayList<>();
+        servers.add(new Server("server1"));
+        servers.add(new Server("server2"));
+        servers.add(new Server("server3"));
+
+        List<Cook> cooks = new ArrayList<>();
+        cooks.add(new Cook("cook1"));
+        cooks.add(new Cook("cook2"));
+        cooks.add(new Cook("cook3"));
+
+        Restaurant mainRestaurant = new Restaurant(servers, cooks);
+        mainRestaurant.exportMetrics();
+        try {
+            // the number of threads to process events with can be given as the first argument, and "actors" as the
+            // second to have every worker handle their own events
+            if (args.length > 1 && args[1].equals("actors")){
+                mainRestaurant.processEventsWithActors(Restaurant.EVENT_FILE, Integer.parseInt(args[0]));
+            } else if (args.length > 0 && Integer.parseInt(args[0]) > 1){
+                mainRestaurant.processEventsInParallel(Restaurant.EVENT_FILE, Integer.parseInt(args[0]));
+            } else {
+                mainRestaurant.processEvents(Restaurant.EVENT_FILE);
+            }
+        } finally {
+            mainRestaurant.close();
+        }
+    }
+}
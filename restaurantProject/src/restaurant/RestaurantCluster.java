@@ -0,0 +1,325 @@
+package restaurant;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import javax.management.ObjectName;
+
+/**
+ * The RestaurantCluster class. Runs many locations of the restaurant in one process, each as its own Restaurant
+ * shard with its own data folder, OrderManager, Kitchen, InventoryManager and Order numbering.
+ *
+ * Each location's files are kept in a folder of the same name under a root folder. Events are routed to a shard by
+ * the location id at the start of their line. Every shard belongs to one worker thread, so the events of a location
+ * are processed one at a time in the order they arrive while different locations run in parallel, as many at once as
+ * there are workers. A shard is never touched by any other thread and an event that fails in one location is reported
+ * without stopping the others.
+ *
+ * To spread the locations over several local processes, start the same cluster once per process with --nodes n and a
+ * different --node i from 0 to n - 1. Each process only hosts the locations whose id hashes to its node, and skips
+ * the events of the others, so every process can be given the whole events file.
+ *
+ * The events file has the format of events.txt with the location id in front:
+ * location | worker | event type | order id or notes | table number ; foods
+ *
+ * Usage: RestaurantCluster --root folder [--events file] [--locations a,b,c] [--threads n] [--node i --nodes n]
+ *                          [--servers n] [--cooks n]
+ * */
+public class RestaurantCluster {
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final Task END = new Task(null, null);
+
+    private final Map<String, Shard> shards = new LinkedHashMap<>(); // the locations hosted here, by id
+    private final List<BlockingQueue<Task>> queues = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final int node;
+    private final int nodes;
+    private boolean stopped; // true once the workers have been stopped and no more events are taken
+    private boolean closed;
+
+    /**
+     * Starts a cluster hosting every given location that belongs to this node
+     * @param root the folder holding a data folder for each location
+     * @param locations the ids of every location in the cluster
+     * @param node which of the processes this one is, from 0 to nodes - 1
+     * @param nodes how many processes the locations are spread over
+     * @param threads the most worker threads to use. There are never more workers than locations
+     * @param servers how many Servers each location has, called server1, server2, ...
+     * @param cooks how many Cooks each location has, called cook1, cook2, ...
+     * */
+    RestaurantCluster(String root, List<String> locations, int node, int nodes, int threads, int servers, int cooks){
+        if (nodes < 1 || node < 0 || node >= nodes){
+            throw new IllegalArgumentException("The node must be between 0 and the number of nodes!");
+        }
+        if (threads < 1){
+            throw new IllegalArgumentException("A cluster needs at least one thread!");
+        }
+        this.node = node;
+        this.nodes = nodes;
+        for (String location : locations){
+            if (hosts(location) && !shards.containsKey(location)){
+                shards.put(location, new Shard(location, new Restaurant(root + "/" + location,
+                        staff("server", servers, Server::new), staff("cook", cooks, Cook::new))));
+            }
+        }
+
+        int count = Math.max(1, Math.min(threads, shards.size()));
+        for (int i = 0; i < count; i++){
+            queues.add(new ArrayBlockingQueue<>(QUEUE_CAPACITY));
+        }
+        int i = 0;
+        for (Shard shard : shards.values()){
+            shard.worker = i++ % count;
+            shard.restaurant.exportMetrics("restaurant:type=Metrics,location=" + ObjectName.quote(shard.location));
+        }
+        for (int w = 0; w < count; w++){
+            Thread worker = new Thread(new Worker(queues.get(w)), "restaurant-shard-" + (w + 1));
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    // returns true if the given location belongs to this node
+    boolean hosts(String location){
+        // the hash is mixed first, as similar ids often have hash codes with the same low bits
+        int hash = location.hashCode() * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), nodes) == node;
+    }
+
+    /**
+     * Hands a line of the events file to the shard of its location
+     * @param line the location id, then an event in the format of events.txt
+     * @return false if the location is hosted by another node, or the line has no location
+     * */
+    boolean route(String line){
+        int bar = line.indexOf('|');
+        if (bar == -1){
+            return false;
+        }
+        return submit(line.substring(0, bar).trim(), line.substring(bar + 1));
+    }
+
+    /**
+     * Hands an event to the shard of the given location. It is processed after every event handed to that location
+     * before it
+     * @param location the location id
+     * @param event an event in the format of events.txt
+     * @return false if the location is hosted by another node
+     * */
+    boolean submit(String location, String event){
+        if (stopped){
+            throw new IllegalStateException("The cluster is no longer taking events!");
+        }
+        Shard shard = shards.get(location);
+        if (shard == null){
+            if (!hosts(location)){
+                return false;
+            }
+            throw new IllegalArgumentException("Location " + location + " not recognized");
+        }
+        put(queues.get(shard.worker), new Task(shard, event));
+        return true;
+    }
+
+    /**
+     * Routes every line of an events file, then waits for the shards to process them
+     * @param file the events file, with the location id at the start of each line
+     * @return the number of events hosted by this node
+     * */
+    long run(String file) throws IOException{
+        long count = 0;
+        try (BufferedReader in = new BufferedReader(new FileReader(file))){
+            String line;
+            while ((line = in.readLine()) != null){
+                if (line.isBlank()){
+                    continue;
+                }
+                try {
+                    if (route(line)){
+                        count++;
+                    }
+                } catch (IllegalArgumentException e){
+                    System.out.println(e.getMessage());
+                }
+            }
+        }
+        drain();
+        return count;
+    }
+
+    // returns the ids of the locations hosted by this node
+    Set<String> getLocations(){
+        return Collections.unmodifiableSet(shards.keySet());
+    }
+
+    // returns the Restaurant of a location hosted by this node, or null. Only safe to use once
+    // every event has been processed
+    Restaurant getRestaurant(String location){
+        Shard shard = shards.get(location);
+        return shard == null ? null : shard.restaurant;
+    }
+
+    // returns the number of events processed, the number that failed and the sales of each hosted location, one per
+    // line
+    String getReport(){
+        StringBuilder report = new StringBuilder();
+        for (Shard shard : shards.values()){
+            report.append(String.format("%-20s events=%d failed=%d sales %s%n", shard.location, shard.processed,
+                    shard.failed, shard.restaurant.getLedger().getTotalSales()));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Waits for every event handed out so far, stops the workers and closes each Restaurant
+     * */
+    void close(){
+        if (closed){
+            return;
+        }
+        drain();
+        closed = true;
+        for (Shard shard : shards.values()){
+            shard.restaurant.close();
+        }
+    }
+
+    // stops the workers once they have processed everything in their queues
+    private void drain(){
+        if (stopped){
+            return;
+        }
+        stopped = true;
+        for (BlockingQueue<Task> queue : queues){
+            put(queue, END);
+        }
+        for (Thread worker : workers){
+            try {
+                worker.join();
+            } catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }
+        workers.clear();
+    }
+
+    private static <T> List<T> staff(String prefix, int count, Function<String, T> create){
+        List<T> staff = new ArrayList<>();
+        for (int i = 1; i <= count; i++){
+            staff.add(create.apply(prefix + i));
+        }
+        return staff;
+    }
+
+    private static void put(BlockingQueue<Task> queue, Task task){
+        try {
+            queue.put(task);
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while handing out events", e);
+        }
+    }
+
+    // returns every folder under the root that has a menu, sorted by name
+    private static List<String> findLocations(String root) throws IOException{
+        List<String> locations = new ArrayList<>();
+        try (Stream<Path> folders = Files.list(Paths.get(root))){
+            folders.filter(folder -> Files.exists(folder.resolve("menu.txt")))
+                    .forEach(folder -> locations.add(folder.getFileName().toString()));
+        }
+        Collections.sort(locations);
+        return locations;
+    }
+
+    public static void main(String[] args) throws IOException{
+        Map<String, String> options = EventLogGenerator.parseOptions(args);
+        String root = options.get("root");
+        if (root == null){
+            throw new IllegalArgumentException("Usage: RestaurantCluster --root folder [--events file] "
+                    + "[--locations a,b,c] [--threads n] [--node i --nodes n] [--servers n] [--cooks n]");
+        }
+        List<String> locations = options.containsKey("locations")
+                ? Arrays.asList(options.get("locations").split(",")) : findLocations(root);
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+        RestaurantCluster cluster = new RestaurantCluster(root, locations,
+                Integer.parseInt(options.getOrDefault("node", "0")),
+                Integer.parseInt(options.getOrDefault("nodes", "1")),
+                threads, Integer.parseInt(options.getOrDefault("servers", "3")),
+                Integer.parseInt(options.getOrDefault("cooks", "3")));
+        long start = System.nanoTime();
+        long count;
+        try {
+            count = cluster.run(options.getOrDefault("events", root + "/events.txt"));
+        } finally {
+            cluster.close();
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("Processed %d events for %d location(s) in %.1f ms%n", count, cluster.shards.size(),
+                elapsed / 1e6);
+        System.out.print(cluster.getReport());
+    }
+
+    // one location and the worker thread that owns it
+    private static class Shard {
+        final String location;
+        final Restaurant restaurant;
+        int worker;
+        long processed; // only changed by the shard's worker
+        long failed;
+
+        Shard(String location, Restaurant restaurant){
+            this.location = location;
+            this.restaurant = restaurant;
+        }
+    }
+
+    // an event and the shard it belongs to
+    private static class Task {
+        final Shard shard;
+        final String event;
+
+        Task(Shard shard, String event){
+            this.shard = shard;
+            this.event = event;
+        }
+    }
+
+    // processes the events of its shards until it reaches END
+    private static class Worker implements Runnable {
+        private final BlockingQueue<Task> queue;
+
+        Worker(BlockingQueue<Task> queue){
+            this.queue = queue;
+        }
+
+        @Override
+        public void run(){
+            while (true){
+                Task task;
+                try {
+                    task = queue.take();
+                } catch (InterruptedException e){
+                    return;
+                }
+                if (task == END){
+                    return;
+                }
+                Shard shard = task.shard;
+                try {
+                    shard.restaurant.processEvent(task.event);
+                    shard.processed++;
+                } catch (RuntimeException e){
+                    // a failed event only affects its own location
+                    shard.failed++;
+                    System.out.println("Location " + shard.location + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+}
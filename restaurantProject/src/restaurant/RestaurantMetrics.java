@@ -0,0 +1,269 @@
+package restaurant;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.*;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The RestaurantMetrics class. Counts what a Restaurant is doing while it runs: how many Orders are in each stage, how
+ * long Orders stay in each stage, how long each type of event takes, how long file writes take, how often an
+ * ingredient runs out and how much stock went into remaking rejected Orders.
+ *
+ * Times are kept in LatencyHistograms, so recording one is a few array increments and never blocks or allocates.
+ * The numbers can be read over JMX once registered, or written to a text file every few seconds
+ * */
+public class RestaurantMetrics implements RestaurantMetricsMXBean {
+    private static final OrderStatus[] STAGES = OrderStatus.values();
+
+    private final AtomicLongArray depths = new AtomicLongArray(STAGES.length); // Orders in each stage
+    private final LatencyHistogram[] dwell = new LatencyHistogram[STAGES.length]; // time spent in each stage
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>(); // every histogram by name
+    private final LongAdder stockOuts = new LongAdder();
+    private final Map<String, LongAdder> waste = new ConcurrentHashMap<>(); // units of each ingredient used by remakes
+
+    // the files written by the InventoryManager
+    final LatencyHistogram journalFlushes = histogram("file.journalFlush");
+    final LatencyHistogram compactions = histogram("file.compaction");
+    final LatencyHistogram inventoryWrites = histogram("file.inventory");
+    final LatencyHistogram requestWrites = histogram("file.requests");
+    // the order log, see OrderLog
+    final LatencyHistogram orderLogCommits = histogram("file.orderLogCommit");
+    final LatencyHistogram recoveries = histogram("file.recovery");
+    // from placing an Order to the table accepting it, for first attempts and for remakes of rejected Orders
+    final LatencyHistogram orderTickets = histogram("ticket.order");
+    final LatencyHistogram remakeTickets = histogram("ticket.remake");
+
+    private ObjectName registeredAs;
+    private ScheduledExecutorService dumper;
+    private String dumpFile;
+
+    public RestaurantMetrics(){
+        // NEW only lasts until the Order is placed and a COMPLETED Order stays completed
+        dwell[OrderStatus.PENDING.ordinal()] = histogram("dwell.pending");
+        dwell[OrderStatus.IN_PROGRESS.ordinal()] = histogram("dwell.inProgress");
+        dwell[OrderStatus.COOKED.ordinal()] = histogram("dwell.cooked");
+        dwell[OrderStatus.RETRIEVED.ordinal()] = histogram("dwell.retrieved");
+    }
+
+    /**
+     * Records an Order moving from one stage to the next
+     * @param from the stage it left
+     * @param to the stage it entered
+     * @param nanosInStage how long it spent in the stage it left
+     * */
+    void moved(OrderStatus from, OrderStatus to, long nanosInStage){
+        if (from != OrderStatus.NEW){
+            depths.decrementAndGet(from.ordinal());
+        }
+        depths.incrementAndGet(to.ordinal());
+        if (dwell[from.ordinal()] != null){
+            dwell[from.ordinal()].record(nanosInStage);
+        }
+    }
+
+    // returns the histogram for the time taken by the given type of event
+    LatencyHistogram eventTimes(String eventType){
+        LatencyHistogram times = histograms.get("event." + eventType);
+        return times != null ? times : histogram("event." + eventType);
+    }
+
+    // counts an Order that couldn't be taken or cooked for lack of an ingredient
+    void stockOut(){
+        stockOuts.increment();
+    }
+
+    /**
+     * Counts the ingredients used to remake a rejected Order as waste
+     * @param ingredients the ingredients of the remake and the amount of each
+     * */
+    void wasted(Map<String, Integer> ingredients){
+        for (Map.Entry<String, Integer> entry : ingredients.entrySet()){
+            waste.computeIfAbsent(entry.getKey(), k -> new LongAdder()).add(entry.getValue());
+        }
+    }
+
+    // returns the histogram with the given name, creating it the first time
+    private LatencyHistogram histogram(String name){
+        return histograms.computeIfAbsent(name, k -> new LatencyHistogram());
+    }
+
+    @Override
+    public long getPendingOrders(){
+        return depths.get(OrderStatus.PENDING.ordinal());
+    }
+
+    @Override
+    public long getOrdersInProgress(){
+        return depths.get(OrderStatus.IN_PROGRESS.ordinal());
+    }
+
+    @Override
+    public long getCookedOrders(){
+        return depths.get(OrderStatus.COOKED.ordinal());
+    }
+
+    @Override
+    public long getCompletedOrders(){
+        return depths.get(OrderStatus.COMPLETED.ordinal());
+    }
+
+    @Override
+    public long getStockOuts(){
+        return stockOuts.sum();
+    }
+
+    @Override
+    public Map<String, Long> getWaste(){
+        Map<String, Long> units = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : waste.entrySet()){
+            units.put(entry.getKey(), entry.getValue().sum());
+        }
+        return units;
+    }
+
+    @Override
+    public Map<String, Long> getCounts(){
+        return collect(LatencyHistogram::getCount);
+    }
+
+    @Override
+    public Map<String, Double> getMeanMicros(){
+        return collect(h -> h.getMean() / 1000);
+    }
+
+    @Override
+    public Map<String, Double> getP50Micros(){
+        return collect(h -> h.getPercentile(50) / 1000.0);
+    }
+
+    @Override
+    public Map<String, Double> getP99Micros(){
+        return collect(h -> h.getPercentile(99) / 1000.0);
+    }
+
+    @Override
+    public Map<String, Double> getMaxMicros(){
+        return collect(h -> h.getMax() / 1000.0);
+    }
+
+    private <T> Map<String, T> collect(Function<LatencyHistogram, T> value){
+        Map<String, T> values = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()){
+            values.put(entry.getKey(), value.apply(entry.getValue()));
+        }
+        return values;
+    }
+
+    @Override
+    public String getReport(){
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("orders pending=%d inProgress=%d cooked=%d completed=%d stockOuts=%d%n",
+                getPendingOrders(), getOrdersInProgress(), getCookedOrders(), getCompletedOrders(),
+                getStockOuts()));
+        Map<String, Long> wasted = getWaste();
+        if (!wasted.isEmpty()){
+            report.append("waste ").append(wasted).append(System.lineSeparator());
+        }
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()){
+            if (entry.getValue().getCount() > 0){
+                report.append(String.format("%-24s %s%n", entry.getKey(), entry.getValue()));
+            }
+        }
+        return report.toString();
+    }
+
+    @Override
+    public void reset(){
+        for (LatencyHistogram histogram : histograms.values()){
+            histogram.reset();
+        }
+        stockOuts.reset();
+        waste.clear();
+    }
+
+    /**
+     * Makes the metrics readable over JMX
+     * @param name the JMX name, e.g. restaurant:type=Metrics
+     * */
+    synchronized void register(String name){
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(name);
+            if (server.isRegistered(objectName)){
+                // a newer Restaurant replaces an older one of the same name
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(this, objectName);
+            registeredAs = objectName;
+        } catch (JMException e){
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Rewrites the given file with the text dump every few seconds, until the metrics are closed
+     * @param file the file to write
+     * @param seconds the time between dumps
+     * */
+    synchronized void startDump(String file, long seconds){
+        if (dumper != null){
+            throw new IllegalStateException("The metrics are already being dumped!");
+        }
+        dumpFile = file;
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "restaurant-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleWithFixedDelay(this::dump, seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    // writes the text dump to a temporary file and moves it over the dump file, so a reader never sees half of it
+    private void dump(){
+        Path target = Paths.get(dumpFile);
+        Path temp = Paths.get(dumpFile + ".tmp");
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(temp))){
+            out.print(getReport());
+        } catch (IOException e){
+            e.printStackTrace();
+            return;
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e){
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes a last dump, stops dumping and removes the metrics from JMX
+     * */
+    synchronized void close(){
+        if (dumper != null){
+            dumper.shutdownNow();
+            dump();
+            dumper = null;
+        }
+        if (registeredAs != null){
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredAs);
+            } catch (JMException e){
+                e.printStackTrace();
+            }
+            registeredAs = null;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package restaurant;
+
+import java.util.Map;
+
+/**
+ * The RestaurantMetricsMXBean interface. What a Restaurant's metrics show over JMX, for example in jconsole under
+ * restaurant:type=Metrics. Every time is in microseconds and every map is keyed by histogram name, such as
+ * dwell.pending or event.takeOrder
+ * */
+public interface RestaurantMetricsMXBean {
+    long getPendingOrders();
+
+    long getOrdersInProgress();
+
+    long getCookedOrders();
+
+    long getCompletedOrders();
+
+    // the number of times an Order couldn't be cooked because an ingredient ran out
+    long getStockOuts();
+
+    // the units of each ingredient used to remake rejected Orders
+    Map<String, Long> getWaste();
+
+    Map<String, Long> getCounts();
+
+    Map<String, Double> getMeanMicros();
+
+    Map<String, Double> getP50Micros();
+
+    Map<String, Double> getP99Micros();
+
+    Map<String, Double> getMaxMicros();
+
+    // the whole text dump
+    String getReport();
+
+    // empties every histogram, the stock-out count and the waste. The queue depths are left alone
+    void reset();
+}
@@ -0,0 +1,187 @@
+package restaurant;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.LongSupplier;
+
+/**
+ * The SalesLedger class. Keeps the running tabs and sales totals of a Restaurant up to date as Orders are completed
+ * and billed, so none of them has to be worked out by going through old Orders.
+ *
+ * Every amount is kept in whole cents as a long, so totals never pick up float rounding however many Orders are added.
+ * A completed Order is added to the tab of its table and of the Server who took it, and to the sales of that Server,
+ * of each dish in it and of the hour it was completed in. Billing an Order takes it off both tabs again but leaves
+ * the sales alone. The hour of a sale is the hour since the epoch, in UTC, given by the clock of the ledger
+ * */
+class SalesLedger {
+    private static final long HOUR_MILLIS = 60 * 60 * 1000L;
+
+    private final LongSupplier clock; // the time in milliseconds since the epoch
+
+    private final Map<Integer, Long> tableTabs = new HashMap<>(); // cents owed by each table
+    private final Map<String, Long> serverTabs = new HashMap<>(); // cents not billed yet of each Server's Orders
+    private final Map<String, Total> byServer = new TreeMap<>();
+    private final Map<String, Total> byDish = new TreeMap<>();
+    private final Map<Long, Total> byHour = new TreeMap<>();
+    private final Total overall = new Total();
+
+    SalesLedger(){
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * Creates an empty ledger
+     * @param clock gives the time in milliseconds since the epoch, used to find the hour of each sale
+     * */
+    SalesLedger(LongSupplier clock){
+        this.clock = clock;
+    }
+
+    /**
+     * Adds an Order that was just completed to the tabs and the sales totals
+     * @param order the Order the customer accepted
+     * */
+    synchronized void completed(Order order){
+        long cents = order.getPriceCents();
+        tableTabs.merge(order.getTableNumber(), cents, Long::sum);
+        serverTabs.merge(order.getServer(), cents, Long::sum);
+        overall.add(1, cents);
+        byServer.computeIfAbsent(order.getServer(), k -> new Total()).add(1, cents);
+        byHour.computeIfAbsent(clock.getAsLong() / HOUR_MILLIS, k -> new Total()).add(1, cents);
+        for (OrderLine line : order.getLines()){
+            byDish.computeIfAbsent(line.getFood().toString(), k -> new Total())
+                    .add(line.getQuantity(), line.getPriceCents());
+        }
+    }
+
+    /**
+     * Takes an Order that the table was given the bill for off the tabs of its table and Server
+     * @param order a completed Order
+     * */
+    synchronized void billed(Order order){
+        long cents = order.getPriceCents();
+        settle(tableTabs, order.getTableNumber(), cents);
+        settle(serverTabs, order.getServer(), cents);
+    }
+
+    // returns the cents owed by a table for Orders it hasn't been billed for
+    synchronized long getTableTab(int tableNumber){
+        return tableTabs.getOrDefault(tableNumber, 0L);
+    }
+
+    // returns the cents of a Server's completed Orders that haven't been billed
+    synchronized long getServerTab(String server){
+        return serverTabs.getOrDefault(server, 0L);
+    }
+
+    // returns the number and value of every completed Order
+    synchronized Total getTotalSales(){
+        return overall.copy();
+    }
+
+    // returns the number and value of the completed Orders a Server took
+    synchronized Total getServerSales(String server){
+        return copyOf(byServer.get(server));
+    }
+
+    // returns the number of units sold of a dish and their value
+    synchronized Total getDishSales(String dish){
+        return copyOf(byDish.get(dish));
+    }
+
+    /**
+     * Returns the number and value of the Orders completed in an hour
+     * @param epochHour the number of hours since the epoch, as in the keys of getHourlySales
+     * */
+    synchronized Total getHourSales(long epochHour){
+        return copyOf(byHour.get(epochHour));
+    }
+
+    // returns the sales of every hour that had any, oldest first, keyed by hours since the epoch
+    synchronized SortedMap<Long, Total> getHourlySales(){
+        SortedMap<Long, Total> hours = new TreeMap<>();
+        for (Map.Entry<Long, Total> entry : byHour.entrySet()){
+            hours.put(entry.getKey(), entry.getValue().copy());
+        }
+        return hours;
+    }
+
+    // returns every tab and sales total, one per line
+    synchronized String getReport(){
+        StringBuilder report = new StringBuilder();
+        String newLine = System.lineSeparator();
+        report.append("sales ").append(overall).append(newLine);
+        for (Map.Entry<String, Total> entry : byServer.entrySet()){
+            report.append("server ").append(entry.getKey()).append(' ').append(entry.getValue())
+                    .append(" tab ").append(formatCents(getServerTab(entry.getKey()))).append(newLine);
+        }
+        for (Map.Entry<String, Total> entry : byDish.entrySet()){
+            report.append("dish ").append(entry.getKey()).append(' ').append(entry.getValue()).append(newLine);
+        }
+        for (Map.Entry<Long, Total> entry : byHour.entrySet()){
+            report.append("hour ").append(Instant.ofEpochMilli(entry.getKey() * HOUR_MILLIS).atOffset(ZoneOffset.UTC)
+                    .toLocalDateTime()).append(' ').append(entry.getValue()).append(newLine);
+        }
+        for (Map.Entry<Integer, Long> entry : new TreeMap<>(tableTabs).entrySet()){
+            if (entry.getValue() != 0){
+                report.append("table ").append(entry.getKey()).append(" tab ").append(formatCents(entry.getValue()))
+                        .append(newLine);
+            }
+        }
+        return report.toString();
+    }
+
+    // writes an amount of cents as dollars and cents, such as 12.05
+    static String formatCents(long cents){
+        String sign = cents < 0 ? "-" : "";
+        long abs = Math.abs(cents);
+        return sign + abs / 100 + "." + (abs % 100 < 10 ? "0" : "") + abs % 100;
+    }
+
+    private static <K> void settle(Map<K, Long> tabs, K key, long cents){
+        long left = tabs.getOrDefault(key, 0L) - cents;
+        if (left == 0){
+            tabs.remove(key);
+        } else {
+            tabs.put(key, left);
+        }
+    }
+
+    private static Total copyOf(Total total){
+        return total == null ? new Total() : total.copy();
+    }
+
+    /**
+     * A number of sales and their value in cents. For Servers and hours the count is of Orders, for dishes it is of
+     * units. The ledger only ever hands out copies
+     * */
+    static class Total {
+        private long count;
+        private long cents;
+
+        private void add(long count, long cents){
+            this.count += count;
+            this.cents += cents;
+        }
+
+        private Total copy(){
+            Total copy = new Total();
+            copy.add(count, cents);
+            return copy;
+        }
+
+        long getCount(){
+            return count;
+        }
+
+        long getCents(){
+            return cents;
+        }
+
+        @Override
+        public String toString(){
+            return count + " for " + formatCents(cents);
+        }
+    }
+}
@@ -1,3 +1,5 @@
+package restaurant;
+
 /**
  * The Server class. Represents a server who builds up orders and submits
  * them to the OrderManager. Servers also bring food back to customers
@@ -0,0 +1,446 @@
+package restaurant;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The TextScanner class. Reads the lines of a text file and splits them into fields without regular expressions or
+ * substrings.
+ *
+ * The file is memory mapped a window at a time and every field is just a range of bytes in that window. Numbers are
+ * read straight from the bytes, and names (foods, ingredients, workers) are looked up in a table of names seen
+ * before, so a name only becomes a new String the first time it appears. Badly formed lines are reported through
+ * fail, which gives the file, the line number and the line itself
+ * */
+class TextScanner implements AutoCloseable {
+    private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final String source;
+    private final FileChannel channel; // null when scanning a single String
+    private final long fileSize;
+    private final NameTable names;
+
+    private ByteBuffer window;
+    private long windowStart; // position of the window in the file
+    private int lineStart;
+    private int lineEnd;
+    private int nextLine;
+    private int lineNumber;
+
+    /**
+     * Opens the given file for scanning
+     * @param file the file to scan
+     * @param names the table names are looked up in, shared between scanners that read the same kind of names
+     * */
+    TextScanner(String file, NameTable names) throws IOException{
+        this.source = Paths.get(file).getFileName().toString();
+        this.channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        this.names = names;
+        map(0);
+    }
+
+    /**
+     * Scans a single line of text, like one event received from elsewhere
+     * @param source what the text is called in error messages
+     * @param text the text to scan
+     * @param names the table names are looked up in
+     * */
+    TextScanner(String source, String text, NameTable names){
+        this.source = source;
+        this.channel = null;
+        this.window = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        this.fileSize = window.limit();
+        this.names = names;
+    }
+
+    // maps the window of the file starting at the given position
+    private void map(long position) throws IOException{
+        windowStart = position;
+        long size = Math.min(WINDOW_SIZE, fileSize - position);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        nextLine = 0;
+    }
+
+    /**
+     * Moves to the next line of the file. Blank lines are skipped
+     * @return false once there are no lines left
+     * */
+    boolean nextLine() throws IOException{
+        while (true){
+            if (nextLine >= window.limit()){
+                if (channel == null || windowStart + window.limit() >= fileSize){
+                    return false;
+                }
+                map(windowStart + nextLine);
+            }
+            int end = indexOf((byte) '\n', nextLine, window.limit());
+            if (end == -1 && channel != null && windowStart + window.limit() < fileSize){
+                // the line runs past the end of the window, so the window is moved to start at the line
+                if (nextLine == 0){
+                    throw new IOException(source + " line " + (lineNumber + 1) + " is too long to read");
+                }
+                map(windowStart + nextLine);
+                continue;
+            }
+            if (end == -1){
+                end = window.limit();
+            }
+            lineStart = nextLine;
+            lineEnd = end;
+            nextLine = end + 1;
+            lineNumber++;
+            // ignores the carriage return of files written on Windows
+            if (lineEnd > lineStart && window.get(lineEnd - 1) == '\r'){
+                lineEnd--;
+            }
+            if (!isBlank(lineStart, lineEnd)){
+                return true;
+            }
+        }
+    }
+
+    // returns the number of the current line, starting at 1
+    int getLineNumber(){
+        return lineNumber;
+    }
+
+    // returns the current line as a String, used for error messages
+    String lineText(){
+        return text(lineStart, lineEnd);
+    }
+
+    // returns a Field covering the whole current line
+    Field line(Field field){
+        return field.over(lineStart, lineEnd);
+    }
+
+    /**
+     * Reports a badly formed current line
+     * @param problem what is wrong with the line
+     * */
+    IllegalArgumentException fail(String problem){
+        return new IllegalArgumentException(source + " line " + lineNumber + ": " + problem + " in \"" + lineText()
+                + "\"");
+    }
+
+    @Override
+    public void close() throws IOException{
+        if (channel != null){
+            channel.close();
+        }
+    }
+
+    private int indexOf(byte b, int from, int to){
+        for (int i = from; i < to; i++){
+            if (window.get(i) == b){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isBlank(int from, int to){
+        for (int i = from; i < to; i++){
+            if (!isSpace(window.get(i))){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSpace(byte b){
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private String text(int from, int to){
+        byte[] bytes = new byte[to - from];
+        for (int i = from; i < to; i++){
+            bytes[i - from] = window.get(i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A range of bytes in the current line with surrounding spaces trimmed. A Field can be split into smaller Fields
+     * by a delimiter or into words, and can be reused for every line
+     * */
+    class Field {
+        int start;
+        int end;
+        private int next; // where the next field starts
+        private int limit; // where the range being split ends
+
+        // makes this Field cover the given range and prepares it to be split
+        Field over(int from, int to){
+            next = from;
+            limit = to;
+            set(from, to);
+            return this;
+        }
+
+        // makes this Field cover the same range as another, and prepares it to be split
+        Field over(Field other){
+            return over(other.start, other.end);
+        }
+
+        /**
+         * Moves the given Field to the next piece of this Field up to the delimiter
+         * @return false once there are no pieces left
+         * */
+        boolean next(byte delimiter, Field into){
+            if (next > limit){
+                return false;
+            }
+            int at = indexOf(delimiter, next, limit);
+            int to = at == -1 ? limit : at;
+            into.over(next, to);
+            next = to + 1;
+            return true;
+        }
+
+        /**
+         * Moves the given Field to the next word of this Field
+         * @return false once there are no words left
+         * */
+        boolean nextWord(Field into){
+            while (next < limit && isSpace(window.get(next))){
+                next++;
+            }
+            if (next >= limit){
+                return false;
+            }
+            int to = next;
+            while (to < limit && !isSpace(window.get(to))){
+                to++;
+            }
+            into.over(next, to);
+            next = to;
+            return true;
+        }
+
+        // counts the pieces this Field would be split into by the delimiter
+        int count(byte delimiter){
+            int count = 1;
+            for (int i = start; i < end; i++){
+                if (window.get(i) == delimiter){
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Splits this Field around the first word that is exactly the given separator, as in "2 x bun"
+         * @return false if there is no such word
+         * */
+        boolean splitAround(byte separator, Field before, Field after){
+            for (int i = start; i < end; i++){
+                if (window.get(i) == separator && (i == start || isSpace(window.get(i - 1)))
+                        && (i + 1 == end || isSpace(window.get(i + 1)))){
+                    before.over(start, i);
+                    after.over(i + 1, end);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean isEmpty(){
+            return start == end;
+        }
+
+        // returns the first byte of this Field
+        byte first(){
+            return window.get(start);
+        }
+
+        // removes the first byte of this Field, as the + of "+lettuce"
+        Field skipFirst(){
+            return over(start + 1, end);
+        }
+
+        // true if this Field holds exactly the given ASCII text
+        boolean is(String text){
+            if (text.length() != end - start){
+                return false;
+            }
+            for (int i = 0; i < text.length(); i++){
+                if (window.get(start + i) != text.charAt(i)){
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Reads this Field as a whole number
+         * @param what what the number is, for the error message
+         * */
+        int toInt(String what){
+            long value = toLong(what);
+            if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE){
+                throw fail(what + " is too large");
+            }
+            return (int) value;
+        }
+
+        /**
+         * Reads this Field as a whole number
+         * @param what what the number is, for the error message
+         * */
+        long toLong(String what){
+            int i = start;
+            boolean negative = i < end && window.get(i) == '-';
+            if (negative){
+                i++;
+            }
+            if (i == end){
+                throw fail("expected " + what + " but found \"" + this + "\"");
+            }
+            long value = 0;
+            for (; i < end; i++){
+                byte b = window.get(i);
+                if (b < '0' || b > '9' || value > Long.MAX_VALUE / 10){
+                    throw fail("expected " + what + " but found \"" + this + "\"");
+                }
+                value = value * 10 + (b - '0');
+            }
+            return negative ? -value : value;
+        }
+
+        /**
+         * Reads this Field as a decimal number, like a price
+         * @param what what the number is, for the error message
+         * */
+        float toFloat(String what){
+            long whole = 0;
+            long fraction = 0;
+            long scale = 1;
+            boolean point = false;
+            boolean digits = false;
+            for (int i = start; i < end; i++){
+                byte b = window.get(i);
+                if (b == '.' && !point){
+                    point = true;
+                } else if (b >= '0' && b <= '9' && scale < 1_000_000_000L){
+                    digits = true;
+                    if (point){
+                        fraction = fraction * 10 + (b - '0');
+                        scale *= 10;
+                    } else {
+                        whole = whole * 10 + (b - '0');
+                    }
+                } else {
+                    throw fail("expected " + what + " but found \"" + this + "\"");
+                }
+            }
+            if (!digits){
+                throw fail("expected " + what + " but found \"" + this + "\"");
+            }
+            return whole + (float) fraction / scale;
+        }
+
+        // returns this Field as a name from the name table
+        String toName(){
+            return names.get(window, start, end);
+        }
+
+        // returns this Field as new text, for free-form notes
+        @Override
+        public String toString(){
+            return text(start, end);
+        }
+
+        // sets the range to the given one without the spaces around it
+        private void set(int from, int to){
+            while (from < to && isSpace(window.get(from))){
+                from++;
+            }
+            while (to > from && isSpace(window.get(to - 1))){
+                to--;
+            }
+            start = from;
+            end = to;
+        }
+    }
+
+    /**
+     * The NameTable class. Hands out one String per distinct name, found by hashing the bytes of the name, so reading
+     * a name that has been seen before allocates nothing. A table can be shared by several threads
+     * */
+    static class NameTable {
+        private byte[][] keys;
+        private String[] values;
+        private int size;
+
+        NameTable(){
+            keys = new byte[64][];
+            values = new String[64];
+        }
+
+        synchronized String get(ByteBuffer buffer, int from, int to){
+            int slot = hash(buffer, from, to) & (keys.length - 1);
+            while (keys[slot] != null){
+                if (matches(keys[slot], buffer, from, to)){
+                    return values[slot];
+                }
+                slot = (slot + 1) & (keys.length - 1);
+            }
+            byte[] key = new byte[to - from];
+            for (int i = from; i < to; i++){
+                key[i - from] = buffer.get(i);
+            }
+            String value = new String(key, StandardCharsets.UTF_8);
+            keys[slot] = key;
+            values[slot] = value;
+            size++;
+            if (size * 2 > keys.length){
+                grow();
+            }
+            return value;
+        }
+
+        private void grow(){
+            byte[][] oldKeys = keys;
+            String[] oldValues = values;
+            keys = new byte[oldKeys.length * 2][];
+            values = new String[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++){
+                if (oldKeys[i] != null){
+                    ByteBuffer key = ByteBuffer.wrap(oldKeys[i]);
+                    int slot = hash(key, 0, oldKeys[i].length) & (keys.length - 1);
+                    while (keys[slot] != null){
+                        slot = (slot + 1) & (keys.length - 1);
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int hash(ByteBuffer buffer, int from, int to){
+            int hash = 0;
+            for (int i = from; i < to; i++){
+                hash = 31 * hash + buffer.get(i);
+            }
+            return hash ^ (hash >>> 16);
+        }
+
+        private static boolean matches(byte[] key, ByteBuffer buffer, int from, int to){
+            if (key.length != to - from){
+                return false;
+            }
+            for (int i = 0; i < key.length; i++){
+                if (key[i] != buffer.get(from + i)){
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
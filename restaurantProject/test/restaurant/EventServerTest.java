@@ -0,0 +1,95 @@
+package restaurant;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventServerTest {
+    @TempDir
+    Path folder;
+
+    @Test
+    void pipelinedEventsAreAnsweredInOrder() throws Exception{
+        TestRestaurants restaurants = new TestRestaurants();
+        TestRestaurants.copySampleData(folder);
+        Restaurant restaurant = restaurants.open(folder);
+        try (EventServer server = start(restaurant); Socket socket = connect(server)){
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.UTF_8));
+
+            // the bad line waits behind the shipment, and is answered without anything else being sent
+            out.write(" | receiveShipment |  | soda x 100\nnot an event\n");
+            out.flush();
+            assertEquals("OK 1", in.readLine());
+            assertTrue(in.readLine().startsWith("ERR "));
+
+            StringBuilder events = new StringBuilder();
+            for (int i = 0; i < 20; i++){
+                events.append("server1 | takeOrder |  | 1 ; Soda x 1\n");
+            }
+            events.append("server1 | takeOrder |  | 2 ; Steak x 5\n");
+            events.append("server1 | tableRequestedBill | 999 |\n");
+            out.write(events.toString());
+            out.flush();
+            for (int i = 1; i <= 20; i++){
+                assertEquals("ORDER " + i, in.readLine());
+            }
+            assertEquals("ERR Order 21 was turned away", in.readLine());
+            assertTrue(in.readLine().startsWith("ERR "));
+        } finally {
+            restaurant.close();
+        }
+    }
+
+    @Test
+    void closingAnswersEveryEventAlreadyRead() throws Exception{
+        TestRestaurants restaurants = new TestRestaurants();
+        TestRestaurants.copySampleData(folder);
+        Restaurant restaurant = restaurants.open(folder);
+        EventServer server = start(restaurant);
+        int placed = 0;
+        try (Socket socket = connect(server)){
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.UTF_8));
+            out.write(" | receiveShipment |  | soda x 1000\n");
+            for (int i = 0; i < 500; i++){
+                out.write("server1 | takeOrder |  | 1 ; Soda x 1\n");
+            }
+            out.flush();
+            assertEquals("OK 1", in.readLine());
+            server.close();
+
+            String line;
+            while ((line = in.readLine()) != null){
+                assertTrue(line.startsWith("ORDER "), line);
+                placed++;
+            }
+        } finally {
+            server.close();
+            restaurant.close();
+        }
+        // every Order the server took was answered before its connection was closed
+        assertTrue(placed > 0);
+        assertEquals(placed, restaurant.getMetrics().getPendingOrders());
+    }
+
+    private static EventServer start(Restaurant restaurant) throws IOException{
+        return new EventServer(restaurant, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4);
+    }
+
+    private static Socket connect(EventServer server) throws IOException{
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        socket.setSoTimeout(10000);
+        return socket;
+    }
+}
@@ -0,0 +1,83 @@
+package restaurant;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InventoryManagerTest {
+    private static final int THREADS = 8;
+    private static final int TRIES = 2000;
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void racingReservationsNeverSetAsideMoreThanTheStock() throws Exception{
+        Files.write(folder.resolve("inventory.txt"), List.of("bun | 300", "patty | 200", "potato | 10000"));
+        Files.write(folder.resolve("minimums.txt"), List.of("bun | 0", "patty | 0", "potato | 0"));
+        InventoryManager inventory = new InventoryManager(true, new RestaurantMetrics(), null, folder.toString());
+        Food burger = new Food("Burger", 5, Map.of("bun", 2, "patty", 1));
+        Food fries = new Food("Fries", 2, Map.of("potato", 1));
+        MenuAvailability availability = new MenuAvailability(List.of(burger, fries));
+        inventory.trackAvailability(availability);
+
+        AtomicInteger burgers = new AtomicInteger(); // committed
+        AtomicInteger friesMade = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> done = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++){
+            int thread = t;
+            done.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < TRIES; i++){
+                    boolean isBurger = (i + thread) % 2 == 0;
+                    InventoryManager.Reservation reservation;
+                    try {
+                        reservation = inventory.reserve(isBurger ? burger.getIngredients() : fries.getIngredients());
+                    } catch (IllegalArgumentException e){
+                        continue; // sold out
+                    }
+                    // every third reservation is given back, as for a cancelled Order
+                    if (i % 3 == 0){
+                        reservation.release();
+                    } else {
+                        reservation.commit();
+                        (isBurger ? burgers : friesMade).incrementAndGet();
+                    }
+                    assertThrows(IllegalStateException.class, reservation::release);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : done){
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        // the stock ran out, but never below what was committed
+        assertEquals(150, burgers.get());
+        assertEquals(300 - 2 * burgers.get(), inventory.getAvailable("bun"));
+        assertEquals(200 - burgers.get(), inventory.getAvailable("patty"));
+        assertEquals(10000 - friesMade.get(), inventory.getAvailable("potato"));
+        assertEquals(0, availability.getPortions("Burger"));
+        assertEquals(inventory.getAvailable("potato"), availability.getPortions("Fries"));
+        inventory.close();
+
+        // what was used is on disk once the inventory is closed
+        InventoryManager reopened = new InventoryManager(true, new RestaurantMetrics(), null, folder.toString());
+        assertEquals(10000 - friesMade.get(), reopened.getAvailable("potato"));
+        assertEquals(0, reopened.getAvailable("bun"));
+        reopened.close();
+    }
+}
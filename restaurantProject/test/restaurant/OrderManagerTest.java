@@ -0,0 +1,61 @@
+package restaurant;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderManagerTest {
+    private final OrderManager manager = new OrderManager();
+
+    @AfterEach
+    void close(){
+        manager.close();
+    }
+
+    @Test
+    void completingARejectedOrderLeavesItsRemakeAlone(){
+        Order order = new Order(4, 1);
+        manager.placeOrder(order);
+        manager.acceptOrder(order);
+        manager.orderIsCooked(order);
+        manager.retrieveOrder(order);
+        Order remake = order.remake();
+        manager.placeOrder(remake);
+
+        // the table took the first plate after all
+        manager.confirmCompleted(order);
+        assertSame(remake, manager.getOrder(1, "pending"));
+        assertEquals(1, manager.countOrders(OrderStatus.PENDING));
+        assertEquals(1, manager.countOrders(OrderStatus.COMPLETED));
+    }
+
+    @Test
+    void completingTwiceChangesNothing(){
+        Order order = new Order(2, 7);
+        manager.placeOrder(order);
+        manager.confirmCompleted(order);
+
+        assertThrows(IllegalArgumentException.class, () -> manager.confirmCompleted(order));
+        assertThrows(IllegalArgumentException.class, () -> manager.placeOrder(new Order(2, 7)));
+        assertEquals(1, manager.countOrders(OrderStatus.COMPLETED));
+        assertSame(order, manager.getOrder(7, "completed"));
+    }
+
+    @Test
+    void pendingOrdersFollowTheManager(){
+        List<Order> pending = manager.getPendingOrders();
+        Order first = new Order(1, 1);
+        Order second = new Order(2, 2);
+        manager.placeOrder(first);
+        manager.placeOrder(second);
+        assertEquals(List.of(first, second), pending);
+
+        manager.acceptOrder(first);
+        assertEquals(List.of(second), pending);
+        assertSame(second, pending.get(0));
+        assertThrows(UnsupportedOperationException.class, () -> pending.remove(second));
+    }
+}
@@ -0,0 +1,108 @@
+package restaurant;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecoveryTest {
+    @TempDir
+    Path folder;
+
+    @Test
+    void theOrderLogBringsBackTheOpenOrders() throws Exception{
+        String logFile = folder.resolve("orders.log").toString();
+        String checkpointFile = folder.resolve("orders.checkpoint").toString();
+        Food fries = new Food("Fries", 2, Map.of("potato", 1));
+        OrderLog log = new OrderLog(logFile, checkpointFile, 0, new LatencyHistogram());
+        Order cooking = order(1, fries);
+        Order cancelled = order(2, fries);
+        log.placed(cooking);
+        log.moved(cooking, OrderStatus.IN_PROGRESS);
+        log.placed(cancelled);
+        log.moved(cancelled, OrderStatus.CANCELLED);
+        log.checkpoint(List.of("place | 1 | 4 | server1 | Fries x 2", "status | 1 | IN_PROGRESS"), 4, 2);
+        Order waiting = order(3, fries);
+        log.placed(waiting);
+        log.moved(cooking, OrderStatus.COOKED);
+        log.close();
+        // a crash while the next entry was being written
+        Files.writeString(folder.resolve("orders.log"), "7 | status | 3 | IN_PR", StandardOpenOption.APPEND);
+
+        OrderLog.Recovery recovery = OrderLog.recover(logFile, checkpointFile);
+        assertEquals(List.of(1, 3), List.copyOf(recovery.openOrders.keySet()));
+        assertEquals(OrderStatus.COOKED, recovery.openOrders.get(1).status);
+        assertEquals(OrderStatus.PENDING, recovery.openOrders.get(3).status);
+        assertEquals("Fries x 2", recovery.openOrders.get(3).foods);
+        assertEquals(6, recovery.lastSequence);
+        assertEquals(3, recovery.highestOrderNumber);
+    }
+
+    @Test
+    void theInventoryJournalReplaysWhatInventoryTxtLacks() throws Exception{
+        String journalFile = folder.resolve("inventory.journal").toString();
+        InventoryJournal journal = new InventoryJournal(journalFile, 3, 10);
+        journal.record("bread", -2);
+        journal.record("tomato", 5);
+        journal.record("bread", -1);
+        // not a full batch, so lost in a crash
+        journal.record("salt", 4);
+
+        Map<String, Integer> inventory = new HashMap<>(Map.of("bread", 10, "tomato", 0));
+        assertEquals(13, InventoryJournal.replay(journalFile, inventory, 10));
+        assertEquals(Map.of("bread", 7, "tomato", 5), inventory);
+
+        // inventory.txt was compacted through entry 12 and the salt was flushed after, then a torn entry
+        journal.truncateThrough(12);
+        Files.writeString(folder.resolve("inventory.journal"), "15 | bread | ", StandardOpenOption.APPEND);
+        Map<String, Integer> compacted = new HashMap<>(Map.of("bread", 8, "tomato", 5, "salt", 0));
+        assertEquals(14, InventoryJournal.replay(journalFile, compacted, 12));
+        assertEquals(Map.of("bread", 7, "tomato", 5, "salt", 4), compacted);
+    }
+
+    @Test
+    void aRestaurantComesBackAsItWasBeforeACrash() throws Exception{
+        TestRestaurants.copySampleData(folder);
+        Restaurant before = new TestRestaurants().open(folder);
+        Restaurant after = null;
+        try {
+            before.openOrderLog(true);
+            TestRestaurants.processEvent(before, "server1 | takeOrder |  | 4 ; Fries x 2");
+            TestRestaurants.processEvent(before, "server1 | takeOrder |  | 5 ; Fries x 1");
+            TestRestaurants.processEvent(before, "cook1 | cookConfirmOrder | 1 |");
+            TestRestaurants.processEvent(before, "cook1 | cookFinishedOrder | 1 |");
+            TestRestaurants.processEvent(before, " | receiveShipment |  | soda x 3");
+
+            // the first Restaurant is never closed, as if the program had stopped here
+            after = new TestRestaurants().open(folder);
+            after.openOrderLog(true);
+            InventoryManager inventory = after.getKitchen().inventoryManager;
+            // 2 potatoes used by order 1 and 1 still set aside for order 2
+            assertEquals(32 - 2 - 1, inventory.getAvailable("potato"));
+            assertEquals(1 + 3, inventory.getAvailable("soda"));
+            assertEquals(1, after.getMetrics().getPendingOrders());
+            assertEquals(1, after.getMetrics().getCookedOrders());
+            assertEquals(3, TestRestaurants.processEvent(after, "server1 | takeOrder |  | 6 ; Soda x 1"));
+            TestRestaurants.processEvent(after, "cook2 | cookConfirmOrder | 2 |");
+        } finally {
+            if (after != null){
+                after.close();
+            }
+            before.close();
+        }
+    }
+
+    private static Order order(int orderNumber, Food food){
+        Order order = new Order(4, orderNumber);
+        order.setServer("server1");
+        order.addLine(new OrderLine(food, 2));
+        return order;
+    }
+}
@@ -0,0 +1,54 @@
+package restaurant;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReorderEngineTest {
+    @TempDir
+    Path folder;
+
+    @Test
+    void whatIsOnOrderSurvivesARestart() throws Exception{
+        String requests = folder.resolve("requests.txt").toString();
+        Map<String, Integer> inventory = new HashMap<>(Map.of("bread", 2, "tomato", 1));
+        Map<String, Integer> minimums = Map.of("bread", 10, "tomato", 10);
+
+        ReorderEngine engine = new ReorderEngine(requests, inventory, minimums, new LatencyHistogram());
+        engine.checkAll(inventory.keySet());
+        assertEquals(Map.of("tomato", 19, "bread", 18), engine.flush());
+        inventory.put("bread", 7);
+        engine.received("bread", 5);
+        engine.flush();
+
+        ReorderEngine restarted = new ReorderEngine(requests, inventory, minimums, new LatencyHistogram());
+        assertEquals(Map.of("tomato", 19, "bread", 13), restarted.getOnOrder());
+        // both are still short, but already on order
+        restarted.checkAll(inventory.keySet());
+        assertEquals(Map.of(), restarted.flush());
+        assertEquals(List.of("# purchase order 1", "tomato x 19", "bread x 18", "# received bread x 5"),
+                Files.readAllLines(folder.resolve("requests.txt")));
+    }
+
+    @Test
+    void anEntryIsOnlyClearedOnceAShipmentCoversIt() throws Exception{
+        String requests = folder.resolve("requests.txt").toString();
+        Files.write(folder.resolve("requests.txt"), List.of("# purchase order 4", "flour x 20", "# received flour x 8",
+                "# received flour x 12", "# purchase order 5", "eggs x 6", "# received eggs x 2"));
+        Map<String, Integer> inventory = new HashMap<>(Map.of("eggs", 0, "flour", 0));
+        Map<String, Integer> minimums = Map.of("eggs", 5, "flour", 10);
+
+        ReorderEngine engine = new ReorderEngine(requests, inventory, minimums, new LatencyHistogram());
+        assertEquals(Map.of("eggs", 4), engine.getOnOrder());
+        engine.checkAll(inventory.keySet());
+        assertEquals(Map.of("flour", 20, "eggs", 6), engine.flush());
+        assertTrue(Files.readAllLines(folder.resolve("requests.txt")).contains("# purchase order 6"));
+    }
+}
@@ -0,0 +1,107 @@
+package restaurant;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestaurantTest {
+    @TempDir
+    Path folder;
+
+    @Test
+    void sampleEventsReplayToTheEnd() throws Exception{
+        TestRestaurants restaurants = new TestRestaurants();
+        TestRestaurants.copySampleData(folder);
+        Restaurant restaurant = restaurants.open(folder);
+        restaurant.processEvents(folder.resolve("events.txt").toString());
+        SalesLedger.Total sales = restaurant.getLedger().getTotalSales();
+        restaurant.close();
+
+        List<String> lines = restaurants.lines();
+        assertTrue(lines.contains("Order 3 turned away: We don't have enough raw steak for that order!"),
+                lines::toString);
+        assertEquals("Event tableRequestedBill for order 3 skipped, the order was turned away",
+                lines.get(lines.size() - 1));
+        // order 2 is the only one the kitchen could make
+        assertEquals(1, sales.getCount());
+    }
+
+    @Test
+    void eventsForATurnedAwayOrderAreSkipped() throws Exception{
+        TestRestaurants restaurants = new TestRestaurants();
+        TestRestaurants.copySampleData(folder);
+        Restaurant restaurant = restaurants.open(folder);
+        restaurant.processEvent("server1 | takeOrder |  | 1 ; Steak x 5");
+        restaurant.processEvent("server1 | takeOrder |  | 2 ; Fries x 1");
+        restaurant.processEvent("cook1 | cookConfirmOrder | 1 |");
+        restaurant.processEvent("cook1 | cookConfirmOrder | 2 |");
+        restaurant.close();
+
+        assertEquals(List.of("Order 1 turned away: We don't have enough raw steak for that order!",
+                "Order 2 placed with foods: [Fries] by Server server1",
+                "Event cookConfirmOrder for order 1 skipped, the order was turned away",
+                "Cook cook1 confirmed order2"), restaurants.lines());
+    }
+
+    @Test
+    void anOrderChangedWithAnUnknownIngredientIsTurnedAway() throws Exception{
+        TestRestaurants restaurants = new TestRestaurants();
+        TestRestaurants.copySampleData(folder);
+        Restaurant restaurant = restaurants.open(folder);
+        restaurant.processEvent("server1 | takeOrder |  | 1 ; Burger x 1 +unicorn");
+        restaurant.processEvent("server1 | takeOrder |  | 2 ; Burger x 1 -tomato, Fries x 1 +salt");
+        restaurant.close();
+
+        assertEquals(List.of("Order 1 turned away: We don't have any unicorn for that order!",
+                "Order 2 placed with foods: [Burger, Fries] by Server server1"), restaurants.lines());
+        // the menu's Burger still needs its tomato
+        assertEquals(Map.of("bun", 2, "patty", 1, "lettuce", 1, "tomato", 1),
+                restaurant.getMenu().get("Burger").getIngredients());
+    }
+
+    @Test
+    void aCookConfirmingNoOrderIsGivenOneByTheScheduler() throws Exception{
+        TestRestaurants restaurants = new TestRestaurants();
+        TestRestaurants.copySampleData(folder);
+        Restaurant restaurant = restaurants.open(folder);
+        restaurant.processEvent("server1 | takeOrder |  | 1 ; Fries x 1");
+        restaurant.processEvent("server1 | takeOrder |  | 2 ; Salad x 1");
+        restaurant.processEvent("cook3 | cookConfirmOrder | 2 |");
+        // the only ticket left is order 1, in another cook's queue
+        int given = TestRestaurants.processEvent(restaurant, "cook3 | cookConfirmOrder |  |");
+        assertThrows(IllegalArgumentException.class, () -> TestRestaurants.processEvent(restaurant,
+                "cook1 | cookConfirmOrder |  |"));
+        restaurant.close();
+
+        assertEquals(1, given);
+        List<String> lines = restaurants.lines();
+        assertEquals(List.of("Cook cook3 confirmed order2", "Cook cook3 confirmed order1"), lines.subList(2, 4));
+    }
+
+    @Test
+    void eventsForARemakeThatWasTurnedAwayAreSkipped() throws Exception{
+        TestRestaurants restaurants = new TestRestaurants();
+        TestRestaurants.copySampleData(folder);
+        Restaurant restaurant = restaurants.open(folder);
+        restaurant.processEvent("server1 | takeOrder |  | 1 ; Steak x 1");
+        restaurant.processEvent("cook1 | cookConfirmOrder | 1 |");
+        restaurant.processEvent("cook1 | cookFinishedOrder | 1 |");
+        // the only raw steak went into the first plate
+        assertEquals(-1, TestRestaurants.processEvent(restaurant, "server1 | tableRejectedOrder | 1 | too cold"));
+        assertEquals(-1, TestRestaurants.processEvent(restaurant, "cook1 | cookConfirmOrder | 1 |"));
+        restaurant.processEvent("server1 | takeOrder |  | 2 ; Soda x 1");
+        restaurant.close();
+
+        List<String> lines = restaurants.lines();
+        assertEquals(List.of("Order 1 can't be remade: We don't have enough raw steak for that order!",
+                "Event cookConfirmOrder for order 1 skipped, the order was turned away",
+                "Order 2 placed with foods: [Soda] by Server server1"), lines.subList(lines.size() - 3, lines.size()));
+        // only order 2 is waiting, nothing was left of order 1
+        assertEquals(1, restaurant.getMetrics().getPendingOrders());
+    }
+}
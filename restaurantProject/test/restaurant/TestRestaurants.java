@@ -0,0 +1,52 @@
+package restaurant;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+// Builds Restaurants for the tests on copies of the sample data files, with their event log lines kept in memory
+class TestRestaurants {
+    static final Path SAMPLE_DATA = Paths.get("src");
+    private static final String[] DATA_FILES = {"menu.txt", "inventory.txt", "minimums.txt", "events.txt"};
+
+    private final ByteArrayOutputStream lines = new ByteArrayOutputStream();
+
+    // copies the sample menu, inventory, minimums and events into the given folder
+    static void copySampleData(Path folder) throws IOException{
+        for (String file : DATA_FILES){
+            Files.copy(SAMPLE_DATA.resolve(file), folder.resolve(file));
+        }
+    }
+
+    // creates a Restaurant on the given folder with server1 to server3 and cook1 to cook3
+    Restaurant open(Path folder){
+        List<Server> servers = new ArrayList<>();
+        List<Cook> cooks = new ArrayList<>();
+        for (int i = 1; i <= 3; i++){
+            servers.add(new Server("server" + i));
+            cooks.add(new Cook("cook" + i));
+        }
+        Restaurant restaurant = new Restaurant(folder.toString(), servers, cooks);
+        restaurant.setEventLog(EventLog.toText(new PrintStream(lines, true, StandardCharsets.UTF_8)));
+        return restaurant;
+    }
+
+    // processes one event line, returning what processEvent returns, unlike Restaurant.processEvent(String)
+    static int processEvent(Restaurant restaurant, String line) throws IOException{
+        TextScanner scanner = new TextScanner("event", line, restaurant.getNames());
+        scanner.nextLine();
+        return restaurant.processEvent(EventRecord.parse(scanner), -1);
+    }
+
+    // the event log lines written so far. The Restaurant has to be closed first, so every line is written
+    List<String> lines(){
+        String text = lines.toString(StandardCharsets.UTF_8);
+        return text.isEmpty() ? List.of() : List.of(text.split(System.lineSeparator()));
+    }
+}